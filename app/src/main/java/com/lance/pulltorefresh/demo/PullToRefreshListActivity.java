@@ -173,7 +173,7 @@ public final class PullToRefreshListActivity extends ListActivity {
 
         switch (item.getItemId()) {
             case MENU_MANUAL_REFRESH:
-                new GetDataTask().execute();
+                // The OnRefreshListener starts the GetDataTask
                 mPullRefreshListView.setRefreshing(false);
                 break;
             case MENU_DISABLE_SCROLL:
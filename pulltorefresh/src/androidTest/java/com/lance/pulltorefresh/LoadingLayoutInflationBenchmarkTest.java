@@ -0,0 +1,141 @@
+package com.lance.pulltorefresh;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.rule.UiThreadTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.lance.pulltorefresh.internal.LoadingViewBuilder;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times creating the Loading Layouts' Views by inflating their XML layouts
+ * against building them with {@link LoadingViewBuilder}, reporting both the
+ * first creation and the mean of the ones after it.
+ * <p>
+ * The first creation is only a cold start when the method is run on its own
+ * in a fresh process, for instance with
+ * {@code -e class com.lance.pulltorefresh.LoadingLayoutInflationBenchmarkTest#buildHeader}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LoadingLayoutInflationBenchmarkTest {
+
+    private static final String TAG = "LoadingLayoutBenchmark";
+    private static final int WARM_ITERATIONS = 100;
+
+    private static final int[] HEADER_IDS = {
+            R.id.fl_inner, R.id.pull_to_refresh_image, R.id.pull_to_refresh_progress,
+            R.id.pull_to_refresh_text, R.id.pull_to_refresh_sub_text
+    };
+    private static final int[] DEFAULT_LAYOUT_IDS = {
+            R.id.fl_inner, R.id.tv_refreshing_text, R.id.pb_refreshing_progress
+    };
+
+    @Rule
+    public UiThreadTestRule uiThreadTestRule = new UiThreadTestRule();
+
+    @Test
+    @UiThreadTest
+    public void inflateHeader() throws Exception {
+        benchmark("inflateHeader", new Creation() {
+            @Override
+            public View create(Context context) {
+                final FrameLayout parent = new FrameLayout(context);
+                LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_vertical, parent);
+                return parent;
+            }
+        }, HEADER_IDS);
+    }
+
+    @Test
+    @UiThreadTest
+    public void buildHeader() throws Exception {
+        benchmark("buildHeader", new Creation() {
+            @Override
+            public View create(Context context) {
+                final FrameLayout parent = new FrameLayout(context);
+                LoadingViewBuilder.buildHeader(parent, PullToRefreshBase.Orientation.VERTICAL);
+                return parent;
+            }
+        }, HEADER_IDS);
+    }
+
+    @Test
+    @UiThreadTest
+    public void inflateDefaultLayouts() throws Exception {
+        benchmark("inflateDefaultHeader", new Creation() {
+            @Override
+            public View create(Context context) {
+                return new DefaultRefreshingHeaderLayout(context, true);
+            }
+        }, DEFAULT_LAYOUT_IDS);
+        benchmark("inflateDefaultFooter", new Creation() {
+            @Override
+            public View create(Context context) {
+                return new DefaultLoadingFooterLayout(context, true);
+            }
+        }, DEFAULT_LAYOUT_IDS);
+    }
+
+    @Test
+    @UiThreadTest
+    public void buildDefaultLayouts() throws Exception {
+        benchmark("buildDefaultHeader", new Creation() {
+            @Override
+            public View create(Context context) {
+                return new DefaultRefreshingHeaderLayout(context, false);
+            }
+        }, DEFAULT_LAYOUT_IDS);
+        benchmark("buildDefaultFooter", new Creation() {
+            @Override
+            public View create(Context context) {
+                return new DefaultLoadingFooterLayout(context, false);
+            }
+        }, DEFAULT_LAYOUT_IDS);
+    }
+
+    private static void benchmark(String name, Creation creation, int[] expectedIds) {
+        final Context context = InstrumentationRegistry.getTargetContext();
+
+        long start = System.nanoTime();
+        final View first = creation.create(context);
+        final long firstNanos = System.nanoTime() - start;
+        assertHasIds(name, first, expectedIds);
+
+        start = System.nanoTime();
+        for (int i = 0; i < WARM_ITERATIONS; i++) {
+            creation.create(context);
+        }
+        final long warmMeanNanos = (System.nanoTime() - start) / WARM_ITERATIONS;
+
+        Log.i(TAG, name + ": first " + firstNanos / 1000 + "us, warm mean " + warmMeanNanos / 1000 + "us");
+
+        final Bundle results = new Bundle();
+        results.putLong(name + "_first_us", firstNanos / 1000);
+        results.putLong(name + "_warm_mean_us", warmMeanNanos / 1000);
+        InstrumentationRegistry.getInstrumentation().sendStatus(Activity.RESULT_OK, results);
+    }
+
+    private static void assertHasIds(String name, View view, int[] ids) {
+        for (int id : ids) {
+            assertNotNull(name + " is missing " + view.getResources().getResourceEntryName(id),
+                    view.findViewById(id));
+        }
+    }
+
+    private interface Creation {
+        View create(Context context);
+    }
+}
@@ -0,0 +1,62 @@
+package com.lance.pulltorefresh;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.rule.UiThreadTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that scrolling the Header out and back in only changes its
+ * visibility when it's first shown and finally hidden.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LoadingLayoutVisibilityTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int FRAMES = 1000;
+
+    @Rule
+    public UiThreadTestRule uiThreadTestRule = new UiThreadTestRule();
+
+    @Test
+    @UiThreadTest
+    public void pullChangesVisibilityAtMostTwice() throws Exception {
+        final PullToRefreshScrollView view = new PullToRefreshScrollView(InstrumentationRegistry.getTargetContext(),
+                PullToRefreshBase.Mode.BOTH);
+        view.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+
+        // The Loading Layouts are created lazily, normally on touch down
+        final LoadingLayoutBase header = view.getHeaderLayout();
+        final LoadingLayoutBase footer = view.getFooterLayout();
+        assertEquals(View.INVISIBLE, header.getVisibility());
+
+        // Out to the maximum pull scroll (and a little past it) and back
+        final int maximumPullScroll = Math.round(HEIGHT / PullToRefreshBase.FRICTION);
+        final int changesBefore = view.getLoadingLayoutVisibilityChangeCount();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            final double progress = Math.sin(Math.PI * frame / (FRAMES - 1));
+            view.setHeaderScroll((int) -Math.round(progress * maximumPullScroll * 1.1));
+
+            if (frame == FRAMES / 2) {
+                assertEquals(View.VISIBLE, header.getVisibility());
+            }
+        }
+        final int changes = view.getLoadingLayoutVisibilityChangeCount() - changesBefore;
+
+        assertEquals(0, view.getScrollY());
+        assertEquals(View.INVISIBLE, header.getVisibility());
+        assertEquals(View.INVISIBLE, footer.getVisibility());
+        assertTrue("Visibility changed " + changes + " times", changes <= 2);
+    }
+}
@@ -0,0 +1,259 @@
+package com.lance.pulltorefresh;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.rule.UiThreadTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the MOVE events of a pull don't allocate, through
+ * onInterceptTouchEvent(), onTouchEvent(), pullEvent() and setHeaderScroll(),
+ * nor when they cross the release threshold and change the state.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PullEventAllocationTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int MOVE_EVENTS = 500;
+    private static final float X = WIDTH / 2f;
+    private static final float DOWN_Y = 100f;
+
+    @Rule
+    public UiThreadTestRule uiThreadTestRule = new UiThreadTestRule();
+
+    @Test
+    @UiThreadTest
+    public void dragDoesNotAllocate() throws Exception {
+        final FrameDrivenScrollView view = createView();
+        final long downTime = startPull(view);
+
+        // Stay between a quarter and three quarters of the Header's size,
+        // so the state doesn't change (which updates the Header's text)
+        final int headerSize = view.getHeaderSize();
+        assertTrue(headerSize > 0);
+        final MotionEvent[] moves = obtainMoves(downTime, headerSize, 0.5f, 0.25f);
+
+        final int allocations = countAllocations(view, moves);
+
+        assertEquals(PullToRefreshBase.State.PULL_TO_REFRESH, view.getState());
+        assertTrue(view.getScrollY() < 0);
+        assertEquals("Allocations during " + MOVE_EVENTS + " MOVE events", 0, allocations);
+    }
+
+    @Test
+    @UiThreadTest
+    public void stateChangesDoNotAllocate() throws Exception {
+        final FrameDrivenScrollView view = createView();
+
+        // The default Header's TextView allocates when its text changes, so
+        // use a Header which doesn't, leaving only our state changes counted
+        final StateCountingLayout header = new StateCountingLayout(view.getContext());
+        view.setHeaderLayout(header);
+        layout(view);
+        final long downTime = startPull(view);
+
+        // Swing between half and one and a half times the Header's size, so
+        // that every swing crosses the release threshold both ways
+        final int headerSize = view.getHeaderSize();
+        assertEquals(StateCountingLayout.CONTENT_SIZE, headerSize);
+        final MotionEvent[] moves = obtainMoves(downTime, headerSize, 1f, 0.5f);
+
+        header.stateChangeCount = 0;
+        final int allocations = countAllocations(view, moves);
+
+        // 500 moves at 10 per radian is around 8 swings, each of which
+        // changes the state twice
+        assertTrue("Only " + header.stateChangeCount + " state changes", header.stateChangeCount >= 10);
+        assertEquals("Allocations during " + header.stateChangeCount + " state changes", 0, allocations);
+    }
+
+    private static FrameDrivenScrollView createView() {
+        final Context context = InstrumentationRegistry.getTargetContext();
+        final FrameDrivenScrollView view = new FrameDrivenScrollView(context);
+
+        // The ScrollView needs content to take the DOWN event, otherwise the
+        // MOVE events never reach onInterceptTouchEvent()
+        view.getRefreshableView().addView(new View(context), new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, HEIGHT * 2));
+        layout(view);
+        return view;
+    }
+
+    private static void layout(View view) {
+        view.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Starts the pull, which creates the Header. The first MOVE past the
+     * touch slop is intercepted, and the ones after it pull.
+     *
+     * @return Down time of the gesture
+     */
+    private static long startPull(FrameDrivenScrollView view) {
+        final long downTime = SystemClock.uptimeMillis();
+        dispatch(view, MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, X, DOWN_Y, 0));
+        final float slop = ViewConfiguration.get(view.getContext()).getScaledTouchSlop();
+        dispatch(view, MotionEvent.obtain(downTime, downTime + 1, MotionEvent.ACTION_MOVE, X, DOWN_Y + slop + 10f, 0));
+        dispatch(view, MotionEvent.obtain(downTime, downTime + 2, MotionEvent.ACTION_MOVE, X, DOWN_Y + slop + 20f, 0));
+        view.runFrame();
+        assertEquals("Pull didn't start", PullToRefreshBase.State.PULL_TO_REFRESH, view.getState());
+        return downTime;
+    }
+
+    /**
+     * @return MOVE events pulling the Header out to headerSize * (centre +
+     * amplitude * sin), past the gesture's first few events
+     */
+    private static MotionEvent[] obtainMoves(long downTime, int headerSize, float centre, float amplitude) {
+        final MotionEvent[] moves = new MotionEvent[MOVE_EVENTS];
+        long eventTime = downTime + 2;
+        for (int i = 0; i < MOVE_EVENTS; i++) {
+            final float pull = headerSize * (centre + amplitude * (float) Math.sin(i / 10.0));
+            moves[i] = MotionEvent.obtain(downTime, ++eventTime, MotionEvent.ACTION_MOVE, X,
+                    DOWN_Y + pull * PullToRefreshBase.FRICTION, 0);
+        }
+        return moves;
+    }
+
+    /**
+     * Sends the moves, each in its own frame, counting the allocations made
+     * after warming up on the first few. Recycles the moves.
+     */
+    @SuppressWarnings("deprecation")
+    private static int countAllocations(FrameDrivenScrollView view, MotionEvent[] moves) {
+        // Warm up anything lazily created on the first moves
+        for (int i = 0; i < 20; i++) {
+            view.dispatchTouchEvent(moves[i]);
+            view.runFrame();
+        }
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (MotionEvent move : moves) {
+            view.dispatchTouchEvent(move);
+            view.runFrame();
+        }
+        Debug.stopAllocCounting();
+        final int allocations = Debug.getThreadAllocCount();
+
+        for (MotionEvent move : moves) {
+            move.recycle();
+        }
+        return allocations;
+    }
+
+    private static void dispatch(FrameDrivenScrollView view, MotionEvent event) {
+        view.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * A Header of a fixed size which only counts the state changes it's told
+     * about.
+     */
+    private static final class StateCountingLayout extends LoadingLayoutBase {
+        static final int CONTENT_SIZE = 100;
+
+        int stateChangeCount;
+
+        StateCountingLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        public int getContentSize() {
+            return CONTENT_SIZE;
+        }
+
+        @Override
+        public void pullToRefresh() {
+            stateChangeCount++;
+        }
+
+        @Override
+        public void releaseToRefresh() {
+            stateChangeCount++;
+        }
+
+        @Override
+        public void onPull(float scaleOfLayout) {
+        }
+
+        @Override
+        public void refreshing() {
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void setPullLabel(CharSequence pullLabel) {
+        }
+
+        @Override
+        public void setRefreshingLabel(CharSequence refreshingLabel) {
+        }
+
+        @Override
+        public void setReleaseLabel(CharSequence releaseLabel) {
+        }
+    }
+
+    /**
+     * Runs the pull event posted for the next frame when the test asks, as the
+     * View isn't attached to a window with a Choreographer.
+     */
+    private static final class FrameDrivenScrollView extends PullToRefreshScrollView {
+        private Runnable frameCallback;
+
+        FrameDrivenScrollView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void postOnAnimation(Runnable action) {
+            frameCallback = action;
+        }
+
+        @Override
+        public boolean postDelayed(Runnable action, long delayMillis) {
+            // Used by postOnAnimation() before Jelly Bean
+            frameCallback = action;
+            return true;
+        }
+
+        @Override
+        public boolean removeCallbacks(Runnable action) {
+            if (frameCallback == action) {
+                frameCallback = null;
+            }
+            return true;
+        }
+
+        void runFrame() {
+            final Runnable callback = frameCallback;
+            frameCallback = null;
+            if (null != callback) {
+                callback.run();
+            }
+        }
+    }
+}
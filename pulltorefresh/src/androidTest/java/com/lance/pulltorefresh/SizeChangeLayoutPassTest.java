@@ -0,0 +1,87 @@
+package com.lance.pulltorefresh;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.rule.UiThreadTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View.MeasureSpec;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a size change, such as a rotation, is handled in a single
+ * measure/layout pass, without a posted requestLayout() asking for another.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SizeChangeLayoutPassTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+
+    @Rule
+    public UiThreadTestRule uiThreadTestRule = new UiThreadTestRule();
+
+    @Test
+    @UiThreadTest
+    public void resizeTakesOnePass() throws Exception {
+        final CountingScrollView view = new CountingScrollView(InstrumentationRegistry.getTargetContext());
+        final LoadingLayoutBase header = view.getHeaderLayout();
+        layout(view, WIDTH, HEIGHT);
+
+        // Rotate
+        view.resetCounts();
+        layout(view, HEIGHT, WIDTH);
+
+        assertEquals(1, view.measureCount);
+        assertEquals(1, view.layoutCount);
+        assertEquals("Posted another layout pass", 0, view.postCount);
+        assertFalse("Requested another layout pass", view.isLayoutRequested());
+
+        // Everything was sized for the new size in that one pass
+        assertEquals(WIDTH, view.getRefreshableViewWrapper().getHeight());
+        assertEquals((int) (Math.round(WIDTH / PullToRefreshBase.FRICTION) * 1.2f), header.getHeight());
+    }
+
+    private static void layout(CountingScrollView view, int width, int height) {
+        view.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        view.layout(0, 0, width, height);
+    }
+
+    private static final class CountingScrollView extends PullToRefreshScrollView {
+        int measureCount;
+        int layoutCount;
+        int postCount;
+
+        CountingScrollView(Context context) {
+            super(context);
+        }
+
+        void resetCounts() {
+            measureCount = layoutCount = postCount = 0;
+        }
+
+        @Override
+        protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+            measureCount++;
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        }
+
+        @Override
+        protected void onLayout(boolean changed, int l, int t, int r, int b) {
+            layoutCount++;
+            super.onLayout(changed, l, t, r, b);
+        }
+
+        @Override
+        public boolean post(Runnable action) {
+            postCount++;
+            return super.post(action);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.lance.pulltorefresh.internal;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.rule.UiThreadTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the edges {@link RecyclerViewEdgeTracker} reports for each kind of
+ * LayoutManager as a RecyclerView is laid out, scrolled and given new data.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RecyclerViewEdgeTrackerTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int ITEM_HEIGHT = 100;
+    private static final int ITEM_COUNT = 20;
+
+    @Rule
+    public UiThreadTestRule uiThreadTestRule = new UiThreadTestRule();
+
+    private RecyclerView recyclerView;
+    private RecyclerViewEdgeTracker tracker;
+
+    @Before
+    public void setUp() throws Exception {
+        final Context context = InstrumentationRegistry.getTargetContext();
+        recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        tracker = new RecyclerViewEdgeTracker(recyclerView, false);
+    }
+
+    @Test
+    @UiThreadTest
+    public void emptyAdapterIsAtBothEdges() throws Exception {
+        recyclerView.setAdapter(new ItemAdapter(new int[0]));
+        layout();
+
+        assertTrue(tracker.isAtStart());
+        assertTrue(tracker.isAtEnd());
+    }
+
+    @Test
+    @UiThreadTest
+    public void noChildrenIsAtNeitherEdge() throws Exception {
+        recyclerView.setAdapter(new ItemAdapter(fixedHeights(ITEM_COUNT)));
+
+        // Data, but the first page hasn't been laid out yet
+        assertFalse(tracker.isAtStart());
+        assertFalse(tracker.isAtEnd());
+
+        // Which is checked again once it has
+        layout();
+        assertTrue(tracker.isAtStart());
+        assertFalse(tracker.isAtEnd());
+    }
+
+    @Test
+    @UiThreadTest
+    public void linearPartiallyShownItems() throws Exception {
+        recyclerView.setAdapter(new ItemAdapter(fixedHeights(ITEM_COUNT)));
+        layout();
+        assertEdgesAsScrolled();
+    }
+
+    @Test
+    @UiThreadTest
+    public void gridPartiallyShownItems() throws Exception {
+        // Two rows' worth of items per span, so the rows are as tall as the
+        // linear list's
+        recyclerView.setLayoutManager(new GridLayoutManager(recyclerView.getContext(), 2));
+        recyclerView.setAdapter(new ItemAdapter(fixedHeights(ITEM_COUNT * 2)));
+        layout();
+        assertEdgesAsScrolled();
+    }
+
+    @Test
+    @UiThreadTest
+    public void staggeredPartiallyShownItems() throws Exception {
+        recyclerView.setLayoutManager(new StaggeredGridLayoutManager(2, StaggeredGridLayoutManager.VERTICAL));
+
+        // Uneven item heights, so the spans don't line up
+        final int[] heights = new int[ITEM_COUNT * 2];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = i % 2 == 0 ? ITEM_HEIGHT : ITEM_HEIGHT / 2;
+        }
+        recyclerView.setAdapter(new ItemAdapter(heights));
+        layout();
+        assertTrue(tracker.isAtStart());
+        assertFalse(tracker.isAtEnd());
+
+        // The first item only partially shown
+        recyclerView.scrollBy(0, ITEM_HEIGHT / 4);
+        assertFalse(tracker.isAtStart());
+
+        recyclerView.scrollBy(0, -ITEM_HEIGHT);
+        assertTrue(tracker.isAtStart());
+
+        // All the way to the end of the longer span
+        recyclerView.scrollBy(0, ITEM_COUNT * ITEM_HEIGHT);
+        assertFalse(tracker.isAtStart());
+        assertTrue(tracker.isAtEnd());
+    }
+
+    @Test
+    @UiThreadTest
+    public void adapterSwap() throws Exception {
+        final ItemAdapter oldAdapter = new ItemAdapter(fixedHeights(ITEM_COUNT));
+        recyclerView.setAdapter(oldAdapter);
+        layout();
+        recyclerView.scrollBy(0, ITEM_HEIGHT * 5);
+        assertFalse(tracker.isAtStart());
+
+        // Swapped for an empty Adapter, without a layout in between
+        recyclerView.setAdapter(new ItemAdapter(new int[0]));
+        assertTrue(tracker.isAtStart());
+        assertTrue(tracker.isAtEnd());
+
+        // And for one with data, which needs laying out before we know
+        final ItemAdapter newAdapter = new ItemAdapter(fixedHeights(3));
+        recyclerView.setAdapter(newAdapter);
+        layout();
+        assertTrue(tracker.isAtStart());
+        assertTrue(tracker.isAtEnd());
+
+        // The old Adapter's changes no longer mark the edges stale, the new
+        // one's do
+        oldAdapter.notifyDataSetChanged();
+        assertTrue(tracker.isAtEnd());
+        newAdapter.setHeights(fixedHeights(ITEM_COUNT));
+        layout();
+        assertTrue(tracker.isAtStart());
+        assertFalse(tracker.isAtEnd());
+    }
+
+    /**
+     * Checks the edges with the first item partially and fully shown, then
+     * the last.
+     */
+    private void assertEdgesAsScrolled() {
+        assertTrue(tracker.isAtStart());
+        assertFalse(tracker.isAtEnd());
+
+        recyclerView.scrollBy(0, ITEM_HEIGHT / 2);
+        assertFalse(tracker.isAtStart());
+        assertFalse(tracker.isAtEnd());
+
+        // The last item's bottom half off the end
+        final int contentHeight = ITEM_COUNT * ITEM_HEIGHT;
+        recyclerView.scrollBy(0, contentHeight - HEIGHT - ITEM_HEIGHT);
+        assertFalse(tracker.isAtEnd());
+
+        recyclerView.scrollBy(0, ITEM_HEIGHT);
+        assertFalse(tracker.isAtStart());
+        assertTrue(tracker.isAtEnd());
+
+        recyclerView.scrollBy(0, -contentHeight);
+        assertTrue(tracker.isAtStart());
+        assertFalse(tracker.isAtEnd());
+    }
+
+    private void layout() {
+        recyclerView.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(HEIGHT, MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private static int[] fixedHeights(int count) {
+        final int[] heights = new int[count];
+        for (int i = 0; i < count; i++) {
+            heights[i] = ITEM_HEIGHT;
+        }
+        return heights;
+    }
+
+    private static final class ItemAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        private int[] heights;
+
+        ItemAdapter(int[] heights) {
+            this.heights = heights;
+        }
+
+        void setHeights(int[] heights) {
+            this.heights = heights;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            return new RecyclerView.ViewHolder(new View(parent.getContext())) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            holder.itemView.setLayoutParams(new RecyclerView.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, heights[position]));
+        }
+
+        @Override
+        public int getItemCount() {
+            return heights.length;
+        }
+    }
+}
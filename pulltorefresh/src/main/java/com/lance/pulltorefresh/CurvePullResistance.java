@@ -0,0 +1,148 @@
+package com.lance.pulltorefresh;
+
+/**
+ * A {@link PullResistance} defined by a curve, which is sampled once into a
+ * lookup table so that each pull event only costs a table lookup and a linear
+ * interpolation, rather than evaluating the curve (log, pow, etc) directly.
+ * <p>
+ * The curve is given in normalized units: the input is the drag distance as
+ * a fraction of the view size, and the output is the pull as a fraction of
+ * the maximum pull scroll. {@link #LINEAR} is the classic behaviour of
+ * dividing the drag by a constant friction.
+ */
+public abstract class CurvePullResistance implements PullResistance {
+
+    /**
+     * Pull out at half the speed of the finger.
+     */
+    public static final CurvePullResistance LINEAR = new CurvePullResistance() {
+        @Override
+        public int getPullScroll(float distance, int maximumPullScroll) {
+            // No need for the table, and this way it's exactly the classic
+            // behaviour
+            return Math.round(distance / PullToRefreshBase.FRICTION);
+        }
+
+        @Override
+        public float getPullScrollSlope(float distance, int maximumPullScroll) {
+            return 1f / PullToRefreshBase.FRICTION;
+        }
+
+        @Override
+        protected float evaluate(float input) {
+            return input;
+        }
+    };
+
+    /**
+     * Easy to start pulling, getting harder the further you pull.
+     */
+    public static final CurvePullResistance LOGARITHMIC = new CurvePullResistance() {
+        @Override
+        protected float evaluate(float input) {
+            return (float) (Math.log(1 + LOG_CURVE_FACTOR * input) / Math.log(1 + LOG_CURVE_FACTOR));
+        }
+    };
+
+    /**
+     * The iOS style rubber band, which approaches but never reaches the
+     * maximum pull scroll.
+     */
+    public static final CurvePullResistance RUBBER_BAND = new CurvePullResistance() {
+        @Override
+        protected float evaluate(float input) {
+            return 1f - 1f / (RUBBER_BAND_COEFFICIENT * PullToRefreshBase.FRICTION * input + 1f);
+        }
+    };
+
+    static final float LOG_CURVE_FACTOR = 4f;
+    static final float RUBBER_BAND_COEFFICIENT = 0.55f;
+
+    /**
+     * Largest normalized input held in the table, anything past this is
+     * clamped. The pull is clamped to the maximum pull scroll anyway.
+     */
+    static final float MAX_INPUT = 2f;
+    static final int TABLE_SIZE = 128;
+
+    private float[] table;
+
+    /**
+     * Maps an int to a built in curve. This is needed when inflating the view
+     * from XML where the curve is given through a attr int.
+     *
+     * @param curveInt - int to map a curve to
+     * @return Curve that curveInt maps to, or LINEAR by default.
+     */
+    static CurvePullResistance mapIntToValue(int curveInt) {
+        switch (curveInt) {
+            case 0x0:
+            default:
+                return LINEAR;
+            case 0x1:
+                return LOGARITHMIC;
+            case 0x2:
+                return RUBBER_BAND;
+        }
+    }
+
+    @Override
+    public int getPullScroll(float distance, int maximumPullScroll) {
+        if (maximumPullScroll <= 0) {
+            return Math.round(distance / PullToRefreshBase.FRICTION);
+        }
+
+        final float[] table = getTable();
+        final float input = distance / (maximumPullScroll * PullToRefreshBase.FRICTION);
+        final float position = Math.min(Math.max(input, 0f), MAX_INPUT) * (TABLE_SIZE - 1) / MAX_INPUT;
+        final int index = Math.min((int) position, TABLE_SIZE - 2);
+        final float fraction = position - index;
+
+        final float output = table[index] + (table[index + 1] - table[index]) * fraction;
+        return Math.round(output * maximumPullScroll);
+    }
+
+    /**
+     * The slope of the line between the two table entries either side of the
+     * distance, which is the slope {@link #getPullScroll(float, int)} has
+     * there.
+     */
+    @Override
+    public float getPullScrollSlope(float distance, int maximumPullScroll) {
+        if (maximumPullScroll <= 0) {
+            return 1f / PullToRefreshBase.FRICTION;
+        }
+
+        final float input = distance / (maximumPullScroll * PullToRefreshBase.FRICTION);
+        if (input >= MAX_INPUT) {
+            // Clamped, so dragging further doesn't pull any further
+            return 0f;
+        }
+
+        final float[] table = getTable();
+        final float position = Math.max(input, 0f) * (TABLE_SIZE - 1) / MAX_INPUT;
+        final int index = Math.min((int) position, TABLE_SIZE - 2);
+
+        // The maximum pull scroll cancels out, as both the input and output
+        // are scaled by it
+        return (table[index + 1] - table[index]) * (TABLE_SIZE - 1) / (MAX_INPUT * PullToRefreshBase.FRICTION);
+    }
+
+    /**
+     * @param input - Drag distance as a fraction of the view size, between 0
+     *              and {@link #MAX_INPUT}
+     * @return Pull as a fraction of the maximum pull scroll
+     */
+    protected abstract float evaluate(float input);
+
+    private float[] getTable() {
+        if (null == table) {
+            final float[] values = new float[TABLE_SIZE];
+            for (int i = 0; i < TABLE_SIZE; i++) {
+                values[i] = evaluate(i * MAX_INPUT / (TABLE_SIZE - 1));
+            }
+            table = values;
+        }
+        return table;
+    }
+}
@@ -8,6 +8,8 @@ import android.widget.FrameLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import com.lance.pulltorefresh.internal.LoadingViewBuilder;
+
 /**
  * Created by lindan on 16-12-6.
  * 默认的加载Footer Layout，可作为Demo模仿
@@ -24,8 +26,19 @@ public class DefaultLoadingFooterLayout extends LoadingLayoutBase {
     private CharSequence releaseLabel;
 
     public DefaultLoadingFooterLayout(Context context) {
+        this(context, false);
+    }
+
+    /**
+     * @param inflate 是否从XML布局inflate，false时直接用代码创建（更快），仅在覆盖了布局时才需要inflate
+     */
+    public DefaultLoadingFooterLayout(Context context, boolean inflate) {
         super(context);
-        LayoutInflater.from(context).inflate(R.layout.default_loading_footer_layout, this);
+        if (inflate) {
+            LayoutInflater.from(context).inflate(R.layout.default_loading_footer_layout, this);
+        } else {
+            LoadingViewBuilder.buildDefaultLayout(this, R.string.pull_to_refresh_default_loading_text, false);
+        }
         innerLayout = (FrameLayout) findViewById(R.id.fl_inner);
         tvRefreshing = (TextView) innerLayout.findViewById(R.id.tv_refreshing_text);
         pbRefreshing = (ProgressBar) innerLayout.findViewById(R.id.pb_refreshing_progress);
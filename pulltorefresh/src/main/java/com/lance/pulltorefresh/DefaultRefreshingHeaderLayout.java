@@ -8,6 +8,8 @@ import android.widget.FrameLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import com.lance.pulltorefresh.internal.LoadingViewBuilder;
+
 /**
  * Created by lindan on 16-12-6.
  * 默认的刷新Header Layout，可作为Demo模仿
@@ -23,8 +25,19 @@ public class DefaultRefreshingHeaderLayout extends LoadingLayoutBase {
     private CharSequence releaseLabel;
 
     public DefaultRefreshingHeaderLayout(Context context) {
+        this(context, false);
+    }
+
+    /**
+     * @param inflate 是否从XML布局inflate，false时直接用代码创建（更快），仅在覆盖了布局时才需要inflate
+     */
+    public DefaultRefreshingHeaderLayout(Context context, boolean inflate) {
         super(context);
-        LayoutInflater.from(context).inflate(R.layout.default_refreshing_header_layout, this);
+        if (inflate) {
+            LayoutInflater.from(context).inflate(R.layout.default_refreshing_header_layout, this);
+        } else {
+            LoadingViewBuilder.buildDefaultLayout(this, R.string.pull_to_refresh_default_refreshing_text, true);
+        }
 
         innerLayout = (FrameLayout) findViewById(R.id.fl_inner);
         tvRefreshing = (TextView) innerLayout.findViewById(R.id.tv_refreshing_text);
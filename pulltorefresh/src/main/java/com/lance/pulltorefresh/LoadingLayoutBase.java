@@ -13,6 +13,12 @@ import android.widget.FrameLayout;
  */
 public abstract class LoadingLayoutBase extends FrameLayout implements ILoadingLayout {
 
+    /**
+     * Set on Loading Layouts which the library created from the theme alone,
+     * the only ones which can be shared through the LoadingLayoutPool
+     */
+    boolean createdFromTheme;
+
     public LoadingLayoutBase(Context context) {
         super(context);
     }
@@ -0,0 +1,31 @@
+package com.lance.pulltorefresh;
+
+/**
+ * Maps the distance the user has dragged to the distance the Header/Footer is
+ * pulled out. This is called for every MOVE event of a pull, so
+ * implementations should be cheap, see {@link CurvePullResistance}.
+ */
+public interface PullResistance {
+
+    /**
+     * @param distance          - Distance in pixels the user has dragged, always
+     *                          positive
+     * @param maximumPullScroll - The furthest the Header/Footer can be pulled,
+     *                          in pixels
+     * @return Distance in pixels the Header/Footer should be pulled out
+     */
+    int getPullScroll(float distance, int maximumPullScroll);
+
+    /**
+     * Used to turn the velocity of the finger into the velocity of the
+     * Header/Footer when a pull is released.
+     *
+     * @param distance          - Distance in pixels the user has dragged, always
+     *                          positive
+     * @param maximumPullScroll - The furthest the Header/Footer can be pulled,
+     *                          in pixels
+     * @return How many pixels the Header/Footer moves for each pixel dragged,
+     * at the given distance
+     */
+    float getPullScrollSlope(float distance, int maximumPullScroll);
+}
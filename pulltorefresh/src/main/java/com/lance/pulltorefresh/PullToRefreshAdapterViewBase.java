@@ -30,14 +30,18 @@ import android.widget.ListAdapter;
 
 import com.lance.pulltorefresh.internal.EmptyViewMethodAccessor;
 import com.lance.pulltorefresh.internal.IndicatorLayout;
+import com.lance.pulltorefresh.internal.LoadMoreTrigger;
 
 public abstract class PullToRefreshAdapterViewBase<T extends AbsListView>
         extends PullToRefreshBase<T>
         implements OnScrollListener {
 
     private boolean lastItemVisible;
+    private boolean firstItemFullyVisible = true;
+    private boolean lastItemFullyVisible = true;
     private OnScrollListener onScrollListener;
     private OnLastItemVisibleListener onLastItemVisibleListener;
+    private final LoadMoreTrigger loadMoreTrigger = new LoadMoreTrigger();
     private View emptyView;
 
     private IndicatorLayout indicatorIvTop;
@@ -101,6 +105,9 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView>
                     + ". Total Items:" + totalItemCount);
         }
 
+        invalidateReadyForPullCache();
+        updateEdgeItemsVisibility(firstVisibleItem, visibleItemCount, totalItemCount);
+
         /*
          * Set whether the Last Item is Visible. lastVisibleItemIndex is a
          * zero-based index, so we minus one totalItemCount to check
@@ -109,6 +116,11 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView>
             lastItemVisible = (totalItemCount > 0) && (firstVisibleItem + visibleItemCount >= totalItemCount - 1);
         }
 
+        // Ask for the next page if we're within the prefetch distance
+        final int firstItemPosition = getInternalHeaderViewCount();
+        loadMoreTrigger.onItemsScrolled(firstVisibleItem + visibleItemCount - 1 - firstItemPosition,
+                totalItemCount - firstItemPosition - getInternalFooterViewCount());
+
         // If we're showing the indicator, check positions...
         if (getShowIndicatorInternal()) {
             updateIndicatorViewsVisibility();
@@ -203,6 +215,43 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView>
         onLastItemVisibleListener = listener;
     }
 
+    /**
+     * Sets the listener to be called when the user scrolls within the prefetch
+     * distance of the end of the data. Unlike
+     * {@link #setOnLastItemVisibleListener(OnLastItemVisibleListener)} this
+     * doesn't wait for the scroll to stop, and is only called once until the
+     * number of items changes or {@link #resetLoadMore()} is called.
+     *
+     * @param listener - Listener to call, or null to remove
+     */
+    public final void setOnLoadMoreListener(OnLoadMoreListener listener) {
+        loadMoreTrigger.setOnLoadMoreListener(listener);
+    }
+
+    /**
+     * Sets how many items from the end of the data the user has to scroll to
+     * before {@link OnLoadMoreListener#onLoadMore()} is called. Defaults to 0,
+     * i.e. when the last item becomes visible.
+     *
+     * @param items - Number of items, must not be negative
+     */
+    public final void setLoadMorePrefetchDistance(int items) {
+        loadMoreTrigger.setPrefetchDistance(items);
+    }
+
+    public final int getLoadMorePrefetchDistance() {
+        return loadMoreTrigger.getPrefetchDistance();
+    }
+
+    /**
+     * Allows {@link OnLoadMoreListener#onLoadMore()} to be called again
+     * without the number of items changing, for instance to retry after a
+     * failed load.
+     */
+    public final void resetLoadMore() {
+        loadMoreTrigger.reset();
+    }
+
     public final void setOnScrollListener(OnScrollListener listener) {
         onScrollListener = listener;
     }
@@ -300,6 +349,28 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView>
         return isLastItemVisible();
     }
 
+    /**
+     * Returns the number of Header Views added to the Adapter View by the
+     * implementation itself, such as Loading Layouts, which shouldn't be
+     * treated as content when checking whether the first item is visible.
+     *
+     * @return number of internal Header Views, 0 by default
+     */
+    protected int getInternalHeaderViewCount() {
+        return 0;
+    }
+
+    /**
+     * Returns the number of Footer Views added to the Adapter View by the
+     * implementation itself, such as Loading Layouts, which shouldn't be
+     * treated as content when checking whether the last item is visible.
+     *
+     * @return number of internal Footer Views, 0 by default
+     */
+    protected int getInternalFooterViewCount() {
+        return 0;
+    }
+
     @Override
     protected void onScrollChanged(int l, int t, int oldl, int oldt) {
         super.onScrollChanged(l, t, oldl, oldt);
@@ -360,68 +431,52 @@ public abstract class PullToRefreshAdapterViewBase<T extends AbsListView>
     }
 
     private boolean isFirstItemVisible() {
-        final Adapter adapter = refreshableView.getAdapter();
-
-        if (null == adapter || adapter.isEmpty()) {
-            if (DEBUG) {
-                Log.d(LOG_TAG, "isFirstItemVisible. Empty View.");
-            }
-            return true;
-
-        } else {
-
-            /*
-             * This check should really just be:
-             * refreshableView.getFirstVisiblePosition() == 0, but PtRListView
-             * internally use a HeaderView which messes the positions up. For
-             * now we'll just add one to account for it and rely on the inner
-             * condition which checks getTop().
-             */
-            if (refreshableView.getFirstVisiblePosition() <= 1) {
-                final View firstVisibleChild = refreshableView.getChildAt(0);
-                if (firstVisibleChild != null) {
-                    return firstVisibleChild.getTop() >= refreshableView.getTop();
-                }
-            }
-        }
-
-        return false;
+        return firstItemFullyVisible;
     }
 
     private boolean isLastItemVisible() {
+        return lastItemFullyVisible;
+    }
+
+    /**
+     * Works out whether the first and last items are fully visible from the
+     * values given to {@link #onScroll(AbsListView, int, int, int)}, which
+     * the Adapter View calls after every scroll and layout. This means that
+     * {@link #isReadyForPullStart()} and {@link #isReadyForPullEnd()} don't
+     * need to query the Adapter View each time.
+     */
+    private void updateEdgeItemsVisibility(final int firstVisibleItem, final int visibleItemCount,
+                                           final int totalItemCount) {
         final Adapter adapter = refreshableView.getAdapter();
 
         if (null == adapter || adapter.isEmpty()) {
             if (DEBUG) {
-                Log.d(LOG_TAG, "isLastItemVisible. Empty View.");
+                Log.d(LOG_TAG, "updateEdgeItemsVisibility. Empty View.");
             }
-            return true;
-        } else {
-            final int lastItemPosition = refreshableView.getCount() - 1;
-            final int lastVisiblePosition = refreshableView.getLastVisiblePosition();
+            firstItemFullyVisible = lastItemFullyVisible = true;
+            return;
+        }
 
-            if (DEBUG) {
-                Log.d(LOG_TAG, "isLastItemVisible. Last Item Position: " + lastItemPosition + " Last Visible Pos: "
-                        + lastVisiblePosition);
-            }
+        // Skip over the Header/Footer Views we've added ourselves, so that we
+        // check the first and last items of the actual content
+        final int firstItemPosition = getInternalHeaderViewCount();
+        final int lastItemPosition = totalItemCount - 1 - getInternalFooterViewCount();
+        final int lastVisibleItem = firstVisibleItem + visibleItemCount - 1;
 
-            /*
-             * This check should really just be: lastVisiblePosition ==
-             * lastItemPosition, but PtRListView internally uses a FooterView
-             * which messes the positions up. For me we'll just subtract one to
-             * account for it and rely on the inner condition which checks
-             * getBottom().
-             */
-            if (lastVisiblePosition >= lastItemPosition - 1) {
-                final int childIndex = lastVisiblePosition - refreshableView.getFirstVisiblePosition();
-                final View lastVisibleChild = refreshableView.getChildAt(childIndex);
-                if (lastVisibleChild != null) {
-                    return lastVisibleChild.getBottom() <= refreshableView.getBottom();
-                }
-            }
+        if (firstVisibleItem <= firstItemPosition && firstItemPosition <= lastVisibleItem) {
+            final View firstItem = refreshableView.getChildAt(firstItemPosition - firstVisibleItem);
+            firstItemFullyVisible = null != firstItem && firstItem.getTop() >= refreshableView.getPaddingTop();
+        } else {
+            firstItemFullyVisible = false;
         }
 
-        return false;
+        if (firstVisibleItem <= lastItemPosition && lastItemPosition <= lastVisibleItem) {
+            final View lastItem = refreshableView.getChildAt(lastItemPosition - firstVisibleItem);
+            lastItemFullyVisible = null != lastItem
+                    && lastItem.getBottom() <= refreshableView.getHeight() - refreshableView.getPaddingBottom();
+        } else {
+            lastItemFullyVisible = false;
+        }
     }
 
     private void removeIndicatorViews() {
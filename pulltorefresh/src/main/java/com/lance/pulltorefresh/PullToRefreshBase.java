@@ -15,26 +15,46 @@ package com.lance.pulltorefresh;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.drawable.Drawable;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Parcelable;
+import android.os.SystemClock;
+import android.support.v4.view.NestedScrollingChild;
+import android.support.v4.view.NestedScrollingChildHelper;
+import android.support.v4.view.NestedScrollingParent;
+import android.support.v4.view.NestedScrollingParentHelper;
 import android.util.AttributeSet;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.VelocityTracker;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.animation.AnimationUtils;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 
 import com.lance.pulltorefresh.internal.FlipLoadingLayout;
+import com.lance.pulltorefresh.internal.LoadingLayoutPool;
 import com.lance.pulltorefresh.internal.RotateLoadingLayout;
 import com.lance.pulltorefresh.internal.Utils;
 import com.lance.pulltorefresh.internal.ViewCompat;
 
-public abstract class PullToRefreshBase<T extends View> extends LinearLayout implements IPullToRefresh<T> {
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeoutException;
+
+public abstract class PullToRefreshBase<T extends View> extends LinearLayout implements IPullToRefresh<T>,
+        NestedScrollingParent, NestedScrollingChild {
 
     // ===========================================================
     // Constants
@@ -42,8 +62,6 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
     public static final boolean DEBUG = false;
 
-    static final boolean USE_HW_LAYERS = false;
-
     public static final String LOG_TAG = "PullToRefresh";
 
     static final float FRICTION = 2.0f;
@@ -52,22 +70,60 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     public static final int SMOOTH_SCROLL_LONG_DURATION_MS = 325;
     static final int DEMO_SCROLL_INTERVAL = 225;
 
+    /**
+     * Natural frequency (rad/s) of the critically damped spring used by
+     * {@link SettleMode#SPRING}.
+     */
+    static final float SPRING_NATURAL_FREQUENCY = 50f;
+
+    /**
+     * Frame interval to predict the finger position with if the display
+     * doesn't report a sensible refresh rate
+     */
+    static final float DEFAULT_FRAME_INTERVAL_MS = 1000f / 60f;
+
     static final String STATE_STATE = "ptr_state";
     static final String STATE_MODE = "ptr_mode";
     static final String STATE_CURRENT_MODE = "ptr_current_mode";
     static final String STATE_SCROLLING_REFRESHING_ENABLED = "ptr_disable_scrolling";
     static final String STATE_SHOW_REFRESHING_VIEW = "ptr_show_refreshing_view";
     static final String STATE_SUPER = "ptr_super";
+    static final String STATE_LAST_REFRESH_TIME = "ptr_last_refresh_time";
+
+    private static final int INVALID_POINTER = -1;
+
+    private static final int READY_START_CHECKED = 0x1;
+    private static final int READY_START = 0x2;
+    private static final int READY_END_CHECKED = 0x4;
+    private static final int READY_END = 0x8;
+
+    /**
+     * Whether each subclass overrides createLoadingLayout(), only used from
+     * the main thread
+     */
+    private static final Map<Class<?>, Boolean> CREATE_LOADING_LAYOUT_OVERRIDES = new HashMap<>();
 
     // ===========================================================
     // Fields
     // ===========================================================
 
     private int touchSlop;
+    private int maximumVelocity;
     private float lastMotionX, lastMotionY;
+
+    // Finger velocity (px/ms) from the samples of the last MOVE, and when
+    // that was, used to predict where the finger will be when the pull is
+    // drawn. Only ever applied to what's drawn, never to lastMotionX/Y.
+    private float motionVelocityX, motionVelocityY;
+    private long lastMotionEventTime;
+    private float frameIntervalMillis = DEFAULT_FRAME_INTERVAL_MS;
     private float initialMotionX, initialMotionY;
+    private int activePointerId = INVALID_POINTER;
 
     private boolean isBeingDragged;
+    private boolean isSettling;
+    private long readyForPullCacheEventTime = -1;
+    private int readyForPullCacheFlags;
     private State state = State.RESET;
     private Mode mode = Mode.getDefault();
 
@@ -80,20 +136,105 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     private boolean filterTouchEvents = true;
     private boolean overScrollEnabled = true;
     private boolean layoutVisibilityChangesEnabled = true;
+    private int headerLayoutVisibility, footerLayoutVisibility;
+    private int measuredForWidth = -1, measuredForHeight = -1;
+    private int layoutVisibilityChangeCount;
     private boolean hasPullDownFriction = true;
     private boolean hasPullUpFriction = true;
+    private boolean eagerRefreshEnabled = false;
 
     private Interpolator scrollAnimationInterpolator;
     private AnimationStyle loadingAnimationStyle = AnimationStyle.getDefault();
+    private SettleMode settleMode = SettleMode.getDefault();
+    private PullResistance pullResistance = CurvePullResistance.LINEAR;
+    private LayerPolicy layerPolicy = LayerPolicy.getDefault();
+    private int appliedLayerType = View.LAYER_TYPE_NONE;
+    private int layerRebuildCount;
+
+    private VelocityTracker velocityTracker;
+    private float releaseVelocity;
 
     protected LoadingLayoutBase headerLayout;
     protected LoadingLayoutBase footerLayout;
 
+    // Whether the Loading Layouts were created from the theme, and haven't
+    // been handed out since, so they can go into the LoadingLayoutPool
+    private boolean headerLayoutPoolable;
+    private boolean footerLayoutPoolable;
+
     private OnRefreshListener<T> onRefreshListener;
     private OnRefreshListener2<T> onRefreshListener2;
     private OnPullEventListener<T> onPullEventListener;
 
-    private SmoothScrollRunnable currentSmoothScrollRunnable;
+    private final SmoothScrollRunnable smoothScrollRunnable = new SmoothScrollRunnable();
+    private final PullGeometry pullGeometry = new PullGeometry();
+
+    private final OnSmoothScrollFinishedListener refreshListenerCaller = new OnSmoothScrollFinishedListener() {
+        @Override
+        public void onSmoothScrollFinished() {
+            callRefreshListener();
+        }
+    };
+
+    private boolean pullEventPending;
+
+    private NestedScrollingParentHelper nestedScrollingParentHelper;
+    private NestedScrollingChildHelper nestedScrollingChildHelper;
+    private final int[] nestedParentScrollConsumed = new int[2];
+    private final int[] nestedParentOffsetInWindow = new int[2];
+    private boolean nestedScrollInProgress;
+    private Mode pendingDemoMode;
+    private int nestedPullDistance;
+
+    private RefreshTask<T, ?> refreshTask;
+    private Executor refreshExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+    private long refreshTimeoutMillis;
+    private AsyncRefresh<?> asyncRefresh;
+    private AsyncRefresh<?> runningRefresh;
+
+    private RefreshCoalescing refreshCoalescing = RefreshCoalescing.getDefault();
+    private boolean followUpRefreshPending;
+    private int executedRefreshCount;
+    private int coalescedRefreshCount;
+
+    private long refreshThrottleMillis;
+    private long lastRefreshTimeMillis;
+    private int throttledRefreshCount;
+    private boolean throttledRefreshInProgress;
+    private OnRefreshThrottledListener<T> onRefreshThrottledListener;
+
+    private final Runnable throttledRefreshCompleteRunnable = new Runnable() {
+        @Override
+        public void run() {
+            completeRefresh(false);
+        }
+    };
+
+    private final Runnable refreshTimeoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (null != asyncRefresh) {
+                asyncRefresh.timeOut();
+            }
+        }
+    };
+
+    private final Runnable pullEventRunnable = new Runnable() {
+        @Override
+        public void run() {
+            pullEventPending = false;
+            if (isBeingDragged) {
+                pullEvent();
+            }
+        }
+    };
+
+    private final Runnable requestLayoutRunnable = new Runnable() {
+        @Override
+        public void run() {
+            requestLayout();
+        }
+    };
 
     // ===========================================================
     // Constructors
@@ -140,15 +281,33 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     @Override
     public final boolean demo() {
         if (mode.showHeaderLoadingLayout() && isReadyForPullStart()) {
-            smoothScrollToAndBack(-getHeaderSize() * 2);
+            startDemo(Mode.PULL_FROM_START);
             return true;
         } else if (mode.showFooterLoadingLayout() && isReadyForPullEnd()) {
-            smoothScrollToAndBack(getFooterSize() * 2);
+            startDemo(Mode.PULL_FROM_END);
             return true;
         }
         return false;
     }
 
+    /**
+     * The Loading Layout may not have been created yet. Once it has, it's
+     * sized straight away if we've been laid out, otherwise the demo waits
+     * for the layout pass which sizes it.
+     */
+    private void startDemo(Mode direction) {
+        final boolean fromEnd = direction == Mode.PULL_FROM_END;
+        ensureLoadingLayouts(!fromEnd, fromEnd);
+
+        final int size = fromEnd ? getFooterSize() : getHeaderSize();
+        if (size > 0) {
+            pendingDemoMode = null;
+            smoothScrollToAndBack(fromEnd ? size * 2 : -size * 2);
+        } else {
+            pendingDemoMode = direction;
+        }
+    }
+
     @Override
     public final Mode getCurrentMode() {
         return currentMode;
@@ -166,6 +325,17 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
     @Override
     public final ILoadingLayout getLoadingLayoutProxy(boolean includeStart, boolean includeEnd) {
+        // The proxy needs the actual Loading Layouts to pass calls on to
+        ensureLoadingLayouts(includeStart && mode.showHeaderLoadingLayout(),
+                includeEnd && mode.showFooterLoadingLayout());
+
+        // They may be customised through the proxy, so can't be shared
+        if (includeStart) {
+            headerLayoutPoolable = false;
+        }
+        if (includeEnd) {
+            footerLayoutPoolable = false;
+        }
         return createLoadingLayoutProxy(includeStart, includeEnd);
     }
 
@@ -215,10 +385,18 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
             return false;
         }
 
-        final int action = event.getAction();
+        final int action = event.getActionMasked();
 
         if (action == MotionEvent.ACTION_CANCEL || action == MotionEvent.ACTION_UP) {
-            isBeingDragged = false;
+            setBeingDragged(false);
+            return false;
+        }
+
+        startReadyForPullCache(event.getEventTime());
+
+        // The Refreshable View is telling us about its scrolling through
+        // nested scrolling, so there's no need to watch the touch events too
+        if (nestedScrollInProgress) {
             return false;
         }
 
@@ -234,7 +412,8 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
                 }
 
                 if (isReadyForPull()) {
-                    final float y = event.getY(), x = event.getX();
+                    final int pointerIndex = getActivePointerIndex(event);
+                    final float y = event.getY(pointerIndex), x = event.getX(pointerIndex);
                     final float diff, oppositeDiff, absDiff;
 
                     // We need to use the correct values, based on scroll
@@ -253,40 +432,47 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
                     absDiff = Math.abs(diff);
 
                     if (absDiff > touchSlop && (!filterTouchEvents || absDiff > Math.abs(oppositeDiff))) {
-                        if (mode.showHeaderLoadingLayout() && diff >= 1f && isReadyForPullStart()) {
+                        // The direction is set first, as starting the drag
+                        // creates the Loading Layout for it
+                        if (mode.showHeaderLoadingLayout() && diff >= 1f && isReadyForPullStartCached()) {
                             lastMotionY = y;
                             lastMotionX = x;
-                            isBeingDragged = true;
                             if (mode == Mode.BOTH) {
                                 currentMode = Mode.PULL_FROM_START;
                             }
-                        } else if (mode.showFooterLoadingLayout() && diff <= -1f && isReadyForPullEnd()) {
+                            setBeingDragged(true);
+                        } else if (mode.showFooterLoadingLayout() && diff <= -1f && isReadyForPullEndCached()) {
                             lastMotionY = y;
                             lastMotionX = x;
-                            isBeingDragged = true;
                             if (mode == Mode.BOTH) {
                                 currentMode = Mode.PULL_FROM_END;
                             }
+                            setBeingDragged(true);
                         }
                     }
                 }
                 break;
             case MotionEvent.ACTION_DOWN:
+                activePointerId = event.getPointerId(0);
                 if (isReadyForPull()) {
                     lastMotionY = initialMotionY = event.getY();
                     lastMotionX = initialMotionX = event.getX();
-                    isBeingDragged = false;
+                    setBeingDragged(false);
                 }
                 break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                onPointerDown(event);
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                onPointerUp(event);
+                break;
         }
         return isBeingDragged;
     }
 
     @Override
     public final void onRefreshComplete() {
-        if (isRefreshing()) {
-            setState(State.RESET);
-        }
+        completeRefresh(true);
     }
 
     @Override
@@ -301,24 +487,32 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
             return true;
         }
 
-        if (event.getAction() == MotionEvent.ACTION_DOWN && event.getEdgeFlags() != 0) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN && event.getEdgeFlags() != 0) {
             return false;
         }
 
-        switch (event.getAction()) {
+        startReadyForPullCache(event.getEventTime());
+
+        switch (event.getActionMasked()) {
             case MotionEvent.ACTION_MOVE:
                 if (isBeingDragged) {
-                    lastMotionY = event.getY();
-                    lastMotionX = event.getX();
-                    pullEvent();
+                    updateLastMotion(event);
+                    trackVelocity(event);
+                    schedulePullEvent();
                     return true;
                 }
                 break;
 
             case MotionEvent.ACTION_DOWN:
                 if (isReadyForPull()) {
+                    activePointerId = event.getPointerId(0);
                     lastMotionY = initialMotionY = event.getY();
                     lastMotionX = initialMotionX = event.getX();
+                    clearMotionVelocity();
+                    if (null != velocityTracker) {
+                        velocityTracker.clear();
+                    }
+                    trackVelocity(event);
                     return true;
                 }
                 break;
@@ -326,24 +520,39 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
             case MotionEvent.ACTION_CANCEL:
             case MotionEvent.ACTION_UP:
                 if (isBeingDragged) {
+                    // The layer type is updated below, once any settle has
+                    // started, so it goes straight from dragging to settling
                     isBeingDragged = false;
-
-                    if (state == State.RELEASE_TO_REFRESH
-                            && (null != onRefreshListener || null != onRefreshListener2)) {
-                        setState(State.REFRESHING, true);
-                        return true;
+                    trackVelocity(event);
+
+                    // Make sure the state reflects where the finger was lifted,
+                    // and what's drawn doesn't run ahead of it
+                    clearMotionVelocity();
+                    if (pullEventPending) {
+                        removeCallbacks(pullEventRunnable);
+                        pullEventPending = false;
+                        final int pointerIndex = getActivePointerIndex(event);
+                        lastMotionY = event.getY(pointerIndex);
+                        lastMotionX = event.getX(pointerIndex);
+                        pullEvent();
                     }
+                    computeReleaseVelocity();
 
-                    // If we're already refreshing, just scroll back to the top
-                    if (isRefreshing()) {
-                        smoothScrollTo(0);
-                        return true;
-                    }
+                    onPullReleased();
+                    return true;
+                }
+                break;
 
-                    // If we haven't returned by here, then we're not in a state
-                    // to pull, so just reset
-                    setState(State.RESET);
+            case MotionEvent.ACTION_POINTER_DOWN:
+                if (isBeingDragged) {
+                    onPointerDown(event);
+                    return true;
+                }
+                break;
 
+            case MotionEvent.ACTION_POINTER_UP:
+                if (isBeingDragged) {
+                    onPointerUp(event);
                     return true;
                 }
                 break;
@@ -351,6 +560,180 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         return false;
     }
 
+    // ===========================================================
+    // Nested Scrolling
+    // ===========================================================
+
+    @Override
+    public boolean onStartNestedScroll(View child, View target, int nestedScrollAxes) {
+        return isNestedScrollingEnabled() && isPullToRefreshEnabled() && !isRefreshing() && !isBeingDragged
+                && (nestedScrollAxes & getNestedScrollAxis()) != 0;
+    }
+
+    @Override
+    public void onNestedScrollAccepted(View child, View target, int axes) {
+        nestedScrollingParentHelper.onNestedScrollAccepted(child, target, axes);
+
+        // Let our own nested scrolling parent (i.e. CoordinatorLayout) know
+        startNestedScroll(axes & getNestedScrollAxis());
+        nestedPullDistance = 0;
+        nestedScrollInProgress = true;
+    }
+
+    @Override
+    public void onNestedPreScroll(View target, int dx, int dy, int[] consumed) {
+        final int axisIndex = getPullToRefreshScrollDirection() == Orientation.HORIZONTAL ? 0 : 1;
+        final int delta = axisIndex == 0 ? dx : dy;
+
+        // If we've pulled the Header/Footer out, scrolling back the other way
+        // pushes it back in before the Refreshable View scrolls
+        if (nestedPullDistance > 0) {
+            if (currentMode == Mode.PULL_FROM_END ? delta < 0 : delta > 0) {
+                final int absDelta = Math.abs(delta);
+                final int pullConsumed = Math.min(absDelta, nestedPullDistance);
+                nestedPullDistance -= pullConsumed;
+                consumed[axisIndex] = delta > 0 ? pullConsumed : -pullConsumed;
+                applyNestedPull();
+            }
+        }
+
+        // Now let our parent have a go at what's left
+        final int[] parentConsumed = nestedParentScrollConsumed;
+        if (dispatchNestedPreScroll(dx - consumed[0], dy - consumed[1], parentConsumed, null)) {
+            consumed[0] += parentConsumed[0];
+            consumed[1] += parentConsumed[1];
+        }
+    }
+
+    @Override
+    public void onNestedScroll(View target, int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed) {
+        // Our parent gets the first go at anything the Refreshable View didn't
+        // consume, such as expanding a collapsed toolbar
+        dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed, nestedParentOffsetInWindow);
+
+        final int delta;
+        switch (getPullToRefreshScrollDirection()) {
+            case HORIZONTAL:
+                delta = dxUnconsumed + nestedParentOffsetInWindow[0];
+                break;
+            case VERTICAL:
+            default:
+                delta = dyUnconsumed + nestedParentOffsetInWindow[1];
+                break;
+        }
+
+        if (delta < 0 && (nestedPullDistance == 0 || currentMode == Mode.PULL_FROM_START)
+                && mode.showHeaderLoadingLayout()) {
+            if (nestedPullDistance == 0 && mode == Mode.BOTH) {
+                currentMode = Mode.PULL_FROM_START;
+            }
+            nestedPullDistance -= delta;
+            applyNestedPull();
+        } else if (delta > 0 && (nestedPullDistance == 0 || currentMode == Mode.PULL_FROM_END)
+                && mode.showFooterLoadingLayout()) {
+            if (nestedPullDistance == 0 && mode == Mode.BOTH) {
+                currentMode = Mode.PULL_FROM_END;
+            }
+            nestedPullDistance += delta;
+            applyNestedPull();
+        }
+    }
+
+    @Override
+    public void onStopNestedScroll(View target) {
+        nestedScrollingParentHelper.onStopNestedScroll(target);
+        nestedScrollInProgress = false;
+
+        if (isBeingDragged) {
+            isBeingDragged = false;
+            nestedPullDistance = 0;
+            onPullReleased();
+        }
+
+        stopNestedScroll();
+    }
+
+    @Override
+    public boolean onNestedPreFling(View target, float velocityX, float velocityY) {
+        // Don't let the Refreshable View fling while the Header/Footer is out
+        return nestedPullDistance > 0 || dispatchNestedPreFling(velocityX, velocityY);
+    }
+
+    @Override
+    public boolean onNestedFling(View target, float velocityX, float velocityY, boolean consumed) {
+        return dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public int getNestedScrollAxes() {
+        return nestedScrollingParentHelper.getNestedScrollAxes();
+    }
+
+    /**
+     * Enables nested scrolling, both as a parent of the Refreshable View and
+     * as a child of our own parent (for example a CoordinatorLayout). When
+     * enabled, and the Refreshable View supports nested scrolling (such as a
+     * RecyclerView), the pull is driven by the scroll deltas the Refreshable
+     * View couldn't consume, rather than by intercepting its touch events.
+     * Disabled by default.
+     *
+     * @param enabled - true to enable nested scrolling
+     */
+    @Override
+    public void setNestedScrollingEnabled(boolean enabled) {
+        // Can be called by View's constructor, before we've been initialised
+        if (null == nestedScrollingChildHelper) {
+            return;
+        }
+        nestedScrollingChildHelper.setNestedScrollingEnabled(enabled);
+
+        if (enabled && null != refreshableView) {
+            android.support.v4.view.ViewCompat.setNestedScrollingEnabled(refreshableView, true);
+        }
+    }
+
+    @Override
+    public boolean isNestedScrollingEnabled() {
+        return null != nestedScrollingChildHelper && nestedScrollingChildHelper.isNestedScrollingEnabled();
+    }
+
+    @Override
+    public boolean startNestedScroll(int axes) {
+        return nestedScrollingChildHelper.startNestedScroll(axes);
+    }
+
+    @Override
+    public void stopNestedScroll() {
+        nestedScrollingChildHelper.stopNestedScroll();
+    }
+
+    @Override
+    public boolean hasNestedScrollingParent() {
+        return nestedScrollingChildHelper.hasNestedScrollingParent();
+    }
+
+    @Override
+    public boolean dispatchNestedScroll(int dxConsumed, int dyConsumed, int dxUnconsumed, int dyUnconsumed,
+                                        int[] offsetInWindow) {
+        return nestedScrollingChildHelper.dispatchNestedScroll(dxConsumed, dyConsumed, dxUnconsumed, dyUnconsumed,
+                offsetInWindow);
+    }
+
+    @Override
+    public boolean dispatchNestedPreScroll(int dx, int dy, int[] consumed, int[] offsetInWindow) {
+        return nestedScrollingChildHelper.dispatchNestedPreScroll(dx, dy, consumed, offsetInWindow);
+    }
+
+    @Override
+    public boolean dispatchNestedFling(float velocityX, float velocityY, boolean consumed) {
+        return nestedScrollingChildHelper.dispatchNestedFling(velocityX, velocityY, consumed);
+    }
+
+    @Override
+    public boolean dispatchNestedPreFling(float velocityX, float velocityY) {
+        return nestedScrollingChildHelper.dispatchNestedPreFling(velocityX, velocityY);
+    }
+
     public final void setScrollingWhileRefreshingEnabled(boolean allowScrollingWhileRefreshing) {
         scrollingWhileRefreshingEnabled = allowScrollingWhileRefreshing;
     }
@@ -418,12 +801,14 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     @Override
     public void setHeaderLayout(LoadingLayoutBase headerLayout) {
         this.headerLayout = headerLayout;
+        headerLayoutPoolable = false;
         updateUIForMode();
     }
 
     @Override
     public void setFooterLayout(LoadingLayoutBase footerLayout) {
         this.footerLayout = footerLayout;
+        footerLayoutPoolable = false;
         updateUIForMode();
     }
 
@@ -467,6 +852,9 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     public final void setRefreshing(boolean doScroll) {
         if (!isRefreshing()) {
             setState(State.MANUAL_REFRESHING, doScroll);
+        } else if (refreshCoalescing != RefreshCoalescing.NONE) {
+            // Already refreshing, so this joins the current refresh
+            coalesceRefresh();
         }
     }
 
@@ -480,124 +868,374 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         this.hasPullUpFriction = hasPullUpFriction;
     }
 
+    public final PullResistance getPullResistance() {
+        return pullResistance;
+    }
+
     /**
-     * @param refreshingLabel refreshingLabel
+     * Set how the drag distance is turned into the pull distance when pull
+     * friction is enabled. The default is {@link CurvePullResistance#LINEAR}.
+     *
+     * @param pullResistance - Resistance to use, can not be null
      */
-    public void setRefreshingLabel(CharSequence refreshingLabel) {
-        getLoadingLayoutProxy().setRefreshingLabel(refreshingLabel);
+    public final void setPullResistance(PullResistance pullResistance) {
+        if (null == pullResistance) {
+            throw new IllegalArgumentException("pullResistance can not be null");
+        }
+        this.pullResistance = pullResistance;
+    }
+
+    public final boolean isEagerRefreshEnabled() {
+        return eagerRefreshEnabled;
     }
 
     /**
-     * @param mode            mode
-     * @param refreshingLabel refreshingLabel
+     * By default the refresh listener is called once the Header/Footer has
+     * finished scrolling into its refreshing position. When eager refresh is
+     * enabled the listener is called as soon as the refresh starts (i.e. when
+     * the user releases the pull), while the Header/Footer settles in
+     * parallel.
+     *
+     * @param eagerRefreshEnabled - true to call the listener on release
      */
-    public void setRefreshingLabel(CharSequence refreshingLabel, Mode mode) {
-        getLoadingLayoutProxy(mode.showHeaderLoadingLayout(), mode.showFooterLoadingLayout()).setRefreshingLabel(
-                refreshingLabel);
+    public final void setEagerRefreshEnabled(boolean eagerRefreshEnabled) {
+        this.eagerRefreshEnabled = eagerRefreshEnabled;
+    }
+
+    public final RefreshTask<T, ?> getRefreshTask() {
+        return refreshTask;
     }
 
     /**
-     * @param releaseLabel releaseLabel
+     * Set a task to be run on the refresh {@link Executor} whenever a refresh
+     * starts, alongside any refresh listener. Once the task has finished,
+     * failed or timed out, its result is delivered on the main thread and
+     * {@link #onRefreshComplete()} is called for you. The task is cancelled if
+     * the View is detached from the window, the refresh is completed by other
+     * means, or a new refresh starts.
+     *
+     * @param refreshTask - Task to run, or null to remove
      */
-    public void setReleaseLabel(CharSequence releaseLabel) {
-        setReleaseLabel(releaseLabel, Mode.BOTH);
+    public final void setRefreshTask(RefreshTask<T, ?> refreshTask) {
+        this.refreshTask = refreshTask;
+    }
+
+    public final Executor getRefreshExecutor() {
+        return refreshExecutor;
     }
 
     /**
-     * @param mode         mode
-     * @param releaseLabel releaseLabel
+     * Set the {@link Executor} which {@link RefreshTask}s are run on. Defaults
+     * to {@link AsyncTask#THREAD_POOL_EXECUTOR}.
+     *
+     * @param refreshExecutor - Executor to use
      */
-    public void setReleaseLabel(CharSequence releaseLabel, Mode mode) {
-        getLoadingLayoutProxy(mode.showHeaderLoadingLayout(), mode.showFooterLoadingLayout()).setReleaseLabel(
-                releaseLabel);
+    public final void setRefreshExecutor(Executor refreshExecutor) {
+        if (null == refreshExecutor) {
+            throw new IllegalArgumentException("refreshExecutor can not be null");
+        }
+        this.refreshExecutor = refreshExecutor;
     }
 
-    public void setScrollAnimationInterpolator(Interpolator interpolator) {
-        scrollAnimationInterpolator = interpolator;
+    public final long getRefreshTimeout() {
+        return refreshTimeoutMillis;
     }
 
-    @Override
-    public final void setShowViewWhileRefreshing(boolean showView) {
-        showViewWhileRefreshing = showView;
+    /**
+     * @return Minimum time in milliseconds between refreshes started by pulling
+     */
+    public final long getRefreshThrottle() {
+        return refreshThrottleMillis;
     }
 
     /**
-     * @return Either {@link Orientation#VERTICAL} or
-     * {@link Orientation#HORIZONTAL} depending on the scroll direction.
+     * Set the minimum time between refreshes started by the user pulling from
+     * the start. If the last successful refresh is younger than this, a pull
+     * still shows the refreshing Header, but the refresh listener and
+     * {@link RefreshTask} aren't called. Instead the
+     * {@link OnRefreshThrottledListener} is called if there is one, otherwise
+     * the refresh completes by itself. Refreshes started with
+     * {@link #setRefreshing()} are never throttled. 0, the default, means no
+     * throttling.
+     *
+     * @param ttlMillis - Time in milliseconds a successful refresh stays fresh
      */
-    public abstract Orientation getPullToRefreshScrollDirection();
-
-    final void setState(State state, final boolean... params) {
-        this.state = state;
-        if (DEBUG) {
-            Log.d(LOG_TAG, "State: " + this.state.name());
+    public final void setRefreshThrottle(long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis can not be negative");
         }
+        refreshThrottleMillis = ttlMillis;
+    }
 
-        switch (this.state) {
-            case RESET:
-                onReset();
-                break;
-            case PULL_TO_REFRESH:
-                onPullToRefresh();
-                break;
-            case RELEASE_TO_REFRESH:
-                onReleaseToRefresh();
-                break;
-            case REFRESHING:
-            case MANUAL_REFRESHING:
-                onRefreshing(params[0]);
-                break;
-            case OVER_SCROLLING:
-                // NO-OP
-                break;
-        }
+    public final void setOnRefreshThrottledListener(OnRefreshThrottledListener<T> listener) {
+        onRefreshThrottledListener = listener;
+    }
 
-        // Call OnPullEventListener
-        if (null != onPullEventListener) {
-            onPullEventListener.onPullEvent(this, this.state, currentMode);
-        }
+    /**
+     * @return Time the last successful refresh completed, as
+     * {@link System#currentTimeMillis()}, or 0 if there hasn't been one. Can
+     * be formatted and passed to {@link #setLastUpdatedLabel(CharSequence)}.
+     */
+    public final long getLastRefreshTime() {
+        return lastRefreshTimeMillis;
     }
 
     /**
-     * Used internally for adding view. Need because we override addView to
-     * pass-through to the Refreshable View
+     * Set the time of the last successful refresh, for instance when the data
+     * has been loaded from a cache. Saved with the instance state.
      *
-     * @param child  child
-     * @param index  index
-     * @param params params
+     * @param timeMillis - Time, as {@link System#currentTimeMillis()}
      */
-    protected final void addViewInternal(View child, int index, ViewGroup.LayoutParams params) {
-        super.addView(child, index, params);
+    public final void setLastRefreshTime(long timeMillis) {
+        lastRefreshTimeMillis = timeMillis;
     }
 
     /**
-     * Used internally for adding view. Need because we override addView to
-     * pass-through to the Refreshable View
+     * @return Number of pulls which have been throttled
+     */
+    public final int getThrottledRefreshCount() {
+        return throttledRefreshCount;
+    }
+
+    /**
+     * Set how long a {@link RefreshTask} can run before it is cancelled and
+     * fails with a {@link TimeoutException}. 0, the default, means no timeout.
+     * With {@link RefreshCoalescing#ATTACH} or
+     * {@link RefreshCoalescing#FOLLOW_UP} the refresh still fails and
+     * completes, but the task itself is left running rather than
+     * interrupted, so that a later refresh can join it.
      *
-     * @param child  child
-     * @param params params
+     * @param timeoutMillis - Timeout in milliseconds
      */
-    protected final void addViewInternal(View child, ViewGroup.LayoutParams params) {
-        super.addView(child, -1, params);
+    public final void setRefreshTimeout(long timeoutMillis) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("timeoutMillis can not be negative");
+        }
+        refreshTimeoutMillis = timeoutMillis;
     }
 
-    protected LoadingLayoutBase createLoadingLayout(Context context, Mode mode, TypedArray attrs) {
-        LoadingLayoutBase layout = loadingAnimationStyle.createLoadingLayout(context, mode,
-                getPullToRefreshScrollDirection(), attrs);
-        layout.setVisibility(View.INVISIBLE);
-        return layout;
+    public final RefreshCoalescing getRefreshCoalescing() {
+        return refreshCoalescing;
     }
 
     /**
-     * Used internally for {@link #getLoadingLayoutProxy(boolean, boolean)}.
-     * Allows derivative classes to include any extra LoadingLayouts.
+     * Set what happens when a refresh is asked for while one is already in
+     * flight, either through {@link #setRefreshing()} or by a new refresh
+     * starting while a {@link RefreshTask} is still running. Defaults to
+     * {@link RefreshCoalescing#NONE}.
      *
-     * @param includeEnd   includeEnd
-     * @param includeStart includeStart
+     * @param refreshCoalescing - Coalescing to use
      */
-    protected LoadingLayoutProxy createLoadingLayoutProxy(final boolean includeStart, final boolean includeEnd) {
-        LoadingLayoutProxy proxy = new LoadingLayoutProxy();
-
+    public final void setRefreshCoalescing(RefreshCoalescing refreshCoalescing) {
+        this.refreshCoalescing = refreshCoalescing;
+        if (refreshCoalescing != RefreshCoalescing.FOLLOW_UP) {
+            followUpRefreshPending = false;
+        }
+    }
+
+    /**
+     * @return Number of refreshes which have called the refresh listener
+     * and/or started the {@link RefreshTask}
+     */
+    public final int getExecutedRefreshCount() {
+        return executedRefreshCount;
+    }
+
+    /**
+     * @return Number of refreshes which were asked for while one was in
+     * flight, and so joined it rather than being run separately
+     */
+    public final int getCoalescedRefreshCount() {
+        return coalescedRefreshCount;
+    }
+
+    /**
+     * @param refreshingLabel refreshingLabel
+     */
+    public void setRefreshingLabel(CharSequence refreshingLabel) {
+        getLoadingLayoutProxy().setRefreshingLabel(refreshingLabel);
+    }
+
+    /**
+     * @param mode            mode
+     * @param refreshingLabel refreshingLabel
+     */
+    public void setRefreshingLabel(CharSequence refreshingLabel, Mode mode) {
+        getLoadingLayoutProxy(mode.showHeaderLoadingLayout(), mode.showFooterLoadingLayout()).setRefreshingLabel(
+                refreshingLabel);
+    }
+
+    /**
+     * @param releaseLabel releaseLabel
+     */
+    public void setReleaseLabel(CharSequence releaseLabel) {
+        setReleaseLabel(releaseLabel, Mode.BOTH);
+    }
+
+    /**
+     * @param mode         mode
+     * @param releaseLabel releaseLabel
+     */
+    public void setReleaseLabel(CharSequence releaseLabel, Mode mode) {
+        getLoadingLayoutProxy(mode.showHeaderLoadingLayout(), mode.showFooterLoadingLayout()).setReleaseLabel(
+                releaseLabel);
+    }
+
+    public void setScrollAnimationInterpolator(Interpolator interpolator) {
+        scrollAnimationInterpolator = interpolator;
+    }
+
+    /**
+     * @return The {@link LayerPolicy} used for the Refreshable View
+     */
+    public final LayerPolicy getLayerPolicy() {
+        return layerPolicy;
+    }
+
+    /**
+     * Set when a Hardware Layer should be used on the Refreshable View while
+     * the Header/Footer is shown. The layer type is only changed when a drag
+     * or settle starts or stops, never per frame. The default is
+     * {@link LayerPolicy#NEVER}.
+     *
+     * @param layerPolicy - Policy to use
+     */
+    public final void setLayerPolicy(LayerPolicy layerPolicy) {
+        this.layerPolicy = layerPolicy;
+        updateLayerType();
+    }
+
+    /**
+     * @return The number of times the Refreshable View's layer type has been
+     * changed, each of which (re)builds or drops its layer. Useful when
+     * profiling a {@link LayerPolicy}.
+     */
+    public final int getLayerRebuildCount() {
+        return layerRebuildCount;
+    }
+
+    /**
+     * @return The number of times the Header/Footer Loading Layout visibility
+     * has been changed while scrolling. Useful for checking that a pull only
+     * shows and hides the Loading Layouts once.
+     */
+    public final int getLoadingLayoutVisibilityChangeCount() {
+        return layoutVisibilityChangeCount;
+    }
+
+    /**
+     * @return The {@link SettleMode} used when the header/footer snaps back
+     */
+    public final SettleMode getSettleMode() {
+        return settleMode;
+    }
+
+    /**
+     * Set how the header/footer settles after the user releases a pull. The
+     * default, {@link SettleMode#DURATION}, animates over a fixed duration.
+     * {@link SettleMode#SPRING} uses a critically damped spring which starts
+     * from the release velocity, so short pulls settle in fewer frames.
+     *
+     * @param settleMode - Mode to use
+     */
+    public final void setSettleMode(SettleMode settleMode) {
+        this.settleMode = settleMode;
+    }
+
+    @Override
+    public final void setShowViewWhileRefreshing(boolean showView) {
+        showViewWhileRefreshing = showView;
+    }
+
+    /**
+     * @return Either {@link Orientation#VERTICAL} or
+     * {@link Orientation#HORIZONTAL} depending on the scroll direction.
+     */
+    public abstract Orientation getPullToRefreshScrollDirection();
+
+    final void setState(State state) {
+        setState(state, false);
+    }
+
+    /**
+     * Non-varargs so that state changes from the touch path (pullEvent) don't
+     * allocate an array per call.
+     *
+     * @param state    - New State
+     * @param doScroll - Whether the UI should scroll, only used by the
+     *                 refreshing states
+     */
+    final void setState(State state, final boolean doScroll) {
+        this.state = state;
+        if (DEBUG) {
+            Log.d(LOG_TAG, "State: " + this.state.name());
+        }
+
+        switch (this.state) {
+            case RESET:
+                onReset();
+                break;
+            case PULL_TO_REFRESH:
+                onPullToRefresh();
+                break;
+            case RELEASE_TO_REFRESH:
+                onReleaseToRefresh();
+                break;
+            case REFRESHING:
+            case MANUAL_REFRESHING:
+                onRefreshing(doScroll);
+                break;
+            case OVER_SCROLLING:
+                // NO-OP
+                break;
+        }
+
+        // Call OnPullEventListener
+        if (null != onPullEventListener) {
+            onPullEventListener.onPullEvent(this, this.state, currentMode);
+        }
+    }
+
+    /**
+     * Used internally for adding view. Need because we override addView to
+     * pass-through to the Refreshable View
+     *
+     * @param child  child
+     * @param index  index
+     * @param params params
+     */
+    protected final void addViewInternal(View child, int index, ViewGroup.LayoutParams params) {
+        super.addView(child, index, params);
+    }
+
+    /**
+     * Used internally for adding view. Need because we override addView to
+     * pass-through to the Refreshable View
+     *
+     * @param child  child
+     * @param params params
+     */
+    protected final void addViewInternal(View child, ViewGroup.LayoutParams params) {
+        super.addView(child, -1, params);
+    }
+
+    protected LoadingLayoutBase createLoadingLayout(Context context, Mode mode, TypedArray attrs) {
+        LoadingLayoutBase layout = loadingAnimationStyle.createLoadingLayout(context, mode,
+                getPullToRefreshScrollDirection(), attrs);
+        layout.setVisibility(View.INVISIBLE);
+        return layout;
+    }
+
+    /**
+     * Used internally for {@link #getLoadingLayoutProxy(boolean, boolean)}.
+     * Allows derivative classes to include any extra LoadingLayouts.
+     *
+     * @param includeEnd   includeEnd
+     * @param includeStart includeStart
+     */
+    protected LoadingLayoutProxy createLoadingLayoutProxy(final boolean includeStart, final boolean includeEnd) {
+        LoadingLayoutProxy proxy = new LoadingLayoutProxy();
+
         if (includeStart && mode.showHeaderLoadingLayout()) {
             proxy.addLayout(headerLayout);
         }
@@ -628,19 +1266,21 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     }
 
     protected final LoadingLayoutBase getFooterLayout() {
+        ensureLoadingLayouts(false, true);
         return footerLayout;
     }
 
     protected final int getFooterSize() {
-        return footerLayout.getContentSize();
+        return getPullGeometry().footerSize;
     }
 
     protected final LoadingLayoutBase getHeaderLayout() {
+        ensureLoadingLayouts(true, false);
         return headerLayout;
     }
 
     protected final int getHeaderSize() {
-        return headerLayout.getContentSize();
+        return getPullGeometry().headerSize;
     }
 
     protected int getPullToRefreshScrollDuration() {
@@ -682,6 +1322,16 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
      */
     protected abstract boolean isReadyForPullStart();
 
+    /**
+     * Discards any cached {@link #isReadyForPullStart()} and
+     * {@link #isReadyForPullEnd()} results. Derived classes should call this
+     * when the Refreshable View scrolls or is laid out, as the cached values
+     * may no longer be correct.
+     */
+    protected final void invalidateReadyForPullCache() {
+        readyForPullCacheFlags = 0;
+    }
+
     /**
      * Called by {@link #onRestoreInstanceState(Parcelable)} so that derivative
      * classes can handle their saved instance state.
@@ -707,10 +1357,10 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     protected void onPullToRefresh() {
         switch (currentMode) {
             case PULL_FROM_END:
-                footerLayout.pullToRefresh();
+                getFooterLayout().pullToRefresh();
                 break;
             case PULL_FROM_START:
-                headerLayout.pullToRefresh();
+                getHeaderLayout().pullToRefresh();
                 break;
             default:
                 // NO-OP
@@ -725,23 +1375,25 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
      * @param doScroll - Whether the UI should scroll for this event.
      */
     protected void onRefreshing(final boolean doScroll) {
-        if (mode.showHeaderLoadingLayout()) {
+        // Make sure the Loading Layout we're about to show exists
+        final boolean refreshingFromEnd = currentMode == Mode.PULL_FROM_END
+                || currentMode == Mode.MANUAL_REFRESH_ONLY;
+        ensureLoadingLayouts(!refreshingFromEnd && mode.showHeaderLoadingLayout(),
+                refreshingFromEnd && mode.showFooterLoadingLayout());
+
+        if (mode.showHeaderLoadingLayout() && null != headerLayout) {
             headerLayout.refreshing();
         }
-        if (mode.showFooterLoadingLayout()) {
+        if (mode.showFooterLoadingLayout() && null != footerLayout) {
             footerLayout.refreshing();
         }
 
         if (doScroll) {
             if (showViewWhileRefreshing) {
 
-                // Call Refresh Listener when the Scroll has finished
-                OnSmoothScrollFinishedListener listener = new OnSmoothScrollFinishedListener() {
-                    @Override
-                    public void onSmoothScrollFinished() {
-                        callRefreshListener();
-                    }
-                };
+                // Call Refresh Listener when the Scroll has finished, unless
+                // we're refreshing eagerly in which case call it right away
+                final OnSmoothScrollFinishedListener listener = eagerRefreshEnabled ? null : refreshListenerCaller;
 
                 switch (currentMode) {
                     case MANUAL_REFRESH_ONLY:
@@ -753,6 +1405,10 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
                         smoothScrollTo(-getHeaderSize(), listener);
                         break;
                 }
+
+                if (eagerRefreshEnabled) {
+                    callRefreshListener();
+                }
             } else {
                 smoothScrollTo(0);
             }
@@ -769,10 +1425,10 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     protected void onReleaseToRefresh() {
         switch (currentMode) {
             case PULL_FROM_END:
-                footerLayout.releaseToRefresh();
+                getFooterLayout().releaseToRefresh();
                 break;
             case PULL_FROM_START:
-                headerLayout.releaseToRefresh();
+                getHeaderLayout().releaseToRefresh();
                 break;
             default:
                 // NO-OP
@@ -785,12 +1441,22 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
      * {@link State#RESET} state.
      */
     protected void onReset() {
-        isBeingDragged = false;
+        // The refresh has been completed by other means
+        cancelAsyncRefresh();
+        followUpRefreshPending = false;
+        throttledRefreshInProgress = false;
+        removeCallbacks(throttledRefreshCompleteRunnable);
+
+        setBeingDragged(false);
         layoutVisibilityChangesEnabled = true;
 
         // Always reset both layouts, just in case...
-        headerLayout.reset();
-        footerLayout.reset();
+        if (null != headerLayout) {
+            headerLayout.reset();
+        }
+        if (null != footerLayout) {
+            footerLayout.reset();
+        }
 
         smoothScrollTo(0);
     }
@@ -806,6 +1472,8 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
             scrollingWhileRefreshingEnabled = bundle.getBoolean(STATE_SCROLLING_REFRESHING_ENABLED, false);
             showViewWhileRefreshing = bundle.getBoolean(STATE_SHOW_REFRESHING_VIEW, true);
 
+            lastRefreshTimeMillis = bundle.getLong(STATE_LAST_REFRESH_TIME, 0);
+
             // Let super Restore Itself
             super.onRestoreInstanceState(bundle.getParcelable(STATE_SUPER));
 
@@ -835,11 +1503,69 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         bundle.putInt(STATE_CURRENT_MODE, currentMode.getIntValue());
         bundle.putBoolean(STATE_SCROLLING_REFRESHING_ENABLED, scrollingWhileRefreshingEnabled);
         bundle.putBoolean(STATE_SHOW_REFRESHING_VIEW, showViewWhileRefreshing);
+        bundle.putLong(STATE_LAST_REFRESH_TIME, lastRefreshTimeMillis);
         bundle.putParcelable(STATE_SUPER, super.onSaveInstanceState());
 
         return bundle;
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        // Don't leave a cancelled refresh showing when we're re-attached
+        if (cancelAsyncRefresh() && isRefreshing()) {
+            setState(State.RESET);
+            setHeaderScroll(0);
+        }
+
+        smoothScrollRunnable.stop();
+        removeCallbacks(pullEventRunnable);
+        pullEventPending = false;
+        if (null != velocityTracker) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+
+        releaseLoadingLayouts();
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+
+        // Most layout passes come from the Refreshable View's content
+        // changing, which leaves the pull geometry as it was
+        if (changed || loadingLayoutSizesChanged()) {
+            pullGeometry.valid = false;
+        }
+
+        // A demo asked for before the Loading Layout had a size. Only tried
+        // the once, so it doesn't pop up later out of the blue
+        if (null != pendingDemoMode) {
+            final Mode direction = pendingDemoMode;
+            pendingDemoMode = null;
+            final int size = direction == Mode.PULL_FROM_END ? getFooterSize() : getHeaderSize();
+            if (size > 0) {
+                smoothScrollToAndBack(direction == Mode.PULL_FROM_END ? size * 2 : -size * 2);
+            }
+        }
+    }
+
+    /**
+     * @return true if the Loading Layouts' content is no longer the size the
+     * pull geometry was worked out with
+     */
+    private boolean loadingLayoutSizesChanged() {
+        final PullGeometry geometry = pullGeometry;
+        if (!geometry.valid) {
+            return false;
+        }
+        final int headerSize = null != headerLayout ? headerLayout.getContentSize() : 0;
+        final int footerSize = null != footerLayout ? footerLayout.getContentSize() : 0;
+        return headerSize != geometry.headerSize || footerSize != geometry.footerSize;
+    }
+
     @Override
     protected final void onSizeChanged(int w, int h, int oldw, int oldh) {
         if (DEBUG) {
@@ -847,6 +1573,12 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         }
 
         super.onSizeChanged(w, h, oldw, oldh);
+        pullGeometry.valid = false;
+
+        // Normally onMeasure() has already sized everything for this size
+        if (w == measuredForWidth && h == measuredForHeight) {
+            return;
+        }
 
         // We need to update the header/footer when our size changes
         refreshLoadingViewsSize();
@@ -858,12 +1590,36 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
          * As we're currently in a Layout Pass, we need to schedule another one
          * to layout any changes we've made here
          */
-        post(new Runnable() {
-            @Override
-            public void run() {
-                requestLayout();
+        removeCallbacks(requestLayoutRunnable);
+        post(requestLayoutRunnable);
+    }
+
+    /**
+     * Sizes the Loading Layouts and Refreshable View for the size we're about
+     * to be measured at, before measuring them. That way a size change only
+     * needs the one measure/layout pass, rather than fixing things up in
+     * onSizeChanged() and requesting another.
+     */
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+        final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+
+        if (widthMode == MeasureSpec.EXACTLY && heightMode == MeasureSpec.EXACTLY) {
+            final int width = MeasureSpec.getSize(widthMeasureSpec);
+            final int height = MeasureSpec.getSize(heightMeasureSpec);
+
+            if (width != measuredForWidth || height != measuredForHeight) {
+                final int pullExtent = getPullToRefreshScrollDirection() == Orientation.HORIZONTAL ? width : height;
+                applyLoadingViewsSize((int) (Math.round(pullExtent / FRICTION) * 1.2f), false);
+                applyRefreshableViewSize(width, height);
+
+                measuredForWidth = width;
+                measuredForHeight = height;
             }
-        });
+        }
+
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
     }
 
     /**
@@ -871,8 +1627,22 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
      * necessary
      */
     protected final void refreshLoadingViewsSize() {
-        final int maximumPullScroll = (int) (getMaximumPullScroll() * 1.2f);
+        applyLoadingViewsSize((int) (getMaximumPullScroll() * 1.2f), true);
+    }
+
+    protected final void refreshRefreshableViewSize(int width, int height) {
+        if (applyRefreshableViewSize(width, height)) {
+            refreshableViewWrapper.requestLayout();
+        }
+    }
 
+    /**
+     * @param maximumPullScroll - Size for the Loading Layouts
+     * @param requestLayout     - Whether to request a layout of changed
+     *                          Loading Layouts. Not needed from onMeasure() as
+     *                          they're about to be measured anyway.
+     */
+    private void applyLoadingViewsSize(int maximumPullScroll, boolean requestLayout) {
         int pLeft = getPaddingLeft();
         int pTop = getPaddingTop();
         int pRight = getPaddingRight();
@@ -880,15 +1650,15 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
         switch (getPullToRefreshScrollDirection()) {
             case HORIZONTAL:
-                if (mode.showHeaderLoadingLayout()) {
-                    headerLayout.setWidth(maximumPullScroll);
+                if (mode.showHeaderLoadingLayout() && null != headerLayout) {
+                    setLoadingLayoutSize(headerLayout, maximumPullScroll, requestLayout);
                     pLeft = -maximumPullScroll;
                 } else {
                     pLeft = 0;
                 }
 
-                if (mode.showFooterLoadingLayout()) {
-                    footerLayout.setWidth(maximumPullScroll);
+                if (mode.showFooterLoadingLayout() && null != footerLayout) {
+                    setLoadingLayoutSize(footerLayout, maximumPullScroll, requestLayout);
                     pRight = -maximumPullScroll;
                 } else {
                     pRight = 0;
@@ -896,15 +1666,15 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
                 break;
 
             case VERTICAL:
-                if (mode.showHeaderLoadingLayout()) {
-                    headerLayout.setHeight(maximumPullScroll);
+                if (mode.showHeaderLoadingLayout() && null != headerLayout) {
+                    setLoadingLayoutSize(headerLayout, maximumPullScroll, requestLayout);
                     pTop = -maximumPullScroll;
                 } else {
                     pTop = 0;
                 }
 
-                if (mode.showFooterLoadingLayout()) {
-                    footerLayout.setHeight(maximumPullScroll);
+                if (mode.showFooterLoadingLayout() && null != footerLayout) {
+                    setLoadingLayoutSize(footerLayout, maximumPullScroll, requestLayout);
                     pBottom = -maximumPullScroll;
                 } else {
                     pBottom = 0;
@@ -918,7 +1688,33 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         setPadding(pLeft, pTop, pRight, pBottom);
     }
 
-    protected final void refreshRefreshableViewSize(int width, int height) {
+    private void setLoadingLayoutSize(LoadingLayoutBase layout, int size, boolean requestLayout) {
+        final ViewGroup.LayoutParams lp = layout.getLayoutParams();
+
+        switch (getPullToRefreshScrollDirection()) {
+            case HORIZONTAL:
+                if (lp.width != size) {
+                    lp.width = size;
+                    if (requestLayout) {
+                        layout.requestLayout();
+                    }
+                }
+                break;
+            case VERTICAL:
+                if (lp.height != size) {
+                    lp.height = size;
+                    if (requestLayout) {
+                        layout.requestLayout();
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * @return true if the Refreshable View's LayoutParams were changed
+     */
+    private boolean applyRefreshableViewSize(int width, int height) {
         // We need to set the Height of the Refreshable View to the same as
         // this layout
         LayoutParams lp = (LayoutParams) refreshableViewWrapper.getLayoutParams();
@@ -927,16 +1723,17 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
             case HORIZONTAL:
                 if (lp.width != width) {
                     lp.width = width;
-                    refreshableViewWrapper.requestLayout();
+                    return true;
                 }
                 break;
             case VERTICAL:
                 if (lp.height != height) {
                     lp.height = height;
-                    refreshableViewWrapper.requestLayout();
+                    return true;
                 }
                 break;
         }
+        return false;
     }
 
     /**
@@ -956,25 +1753,15 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
         if (layoutVisibilityChangesEnabled) {
             if (value < 0) {
-                headerLayout.setVisibility(View.VISIBLE);
+                setHeaderLayoutVisibility(View.VISIBLE);
             } else if (value > 0) {
-                footerLayout.setVisibility(View.VISIBLE);
+                setFooterLayoutVisibility(View.VISIBLE);
             } else {
-                headerLayout.setVisibility(View.INVISIBLE);
-                footerLayout.setVisibility(View.INVISIBLE);
+                setHeaderLayoutVisibility(View.INVISIBLE);
+                setFooterLayoutVisibility(View.INVISIBLE);
             }
         }
 
-        if (USE_HW_LAYERS) {
-            /*
-             * Use a Hardware Layer on the Refreshable View if we've scrolled at
-             * all. We don't use them on the Header/Footer Views as they change
-             * often, which would negate any HW layer performance boost.
-             */
-            ViewCompat.setLayerType(refreshableViewWrapper, value != 0 ? View.LAYER_TYPE_HARDWARE
-                    : View.LAYER_TYPE_NONE);
-        }
-
         switch (getPullToRefreshScrollDirection()) {
             case VERTICAL:
                 scrollTo(0, value);
@@ -1021,32 +1808,221 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
      * checking that the mode is different to current state so always updates.
      */
     protected void updateUIForMode() {
+        updateLoadingLayouts();
+
+        // If we're not using Mode.BOTH, set currentMode to mode, otherwise
+        // set it to pull down
+        currentMode = (mode != Mode.BOTH) ? mode : Mode.PULL_FROM_START;
+    }
+
+    /**
+     * Adds the Loading Layouts which have been created and are wanted by the
+     * current mode, removing any others, then resizes them.
+     */
+    private void updateLoadingLayouts() {
         // We need to use the correct LayoutParam values, based on scroll
         // direction
         final LayoutParams lp = getLoadingLayoutLayoutParams();
 
         // Remove Header, and then add Header Loading View again if needed
-        if (this == headerLayout.getParent()) {
-            removeView(headerLayout);
-        }
-        if (mode.showHeaderLoadingLayout()) {
-            addViewInternal(headerLayout, 0, lp);
+        if (null != headerLayout) {
+            if (this == headerLayout.getParent()) {
+                removeView(headerLayout);
+            }
+            if (mode.showHeaderLoadingLayout()) {
+                addViewInternal(headerLayout, 0, lp);
+            }
+            headerLayoutVisibility = headerLayout.getVisibility();
         }
 
         // Remove Footer, and then add Footer Loading View again if needed
-        if (this == footerLayout.getParent()) {
-            removeView(footerLayout);
-        }
-        if (mode.showFooterLoadingLayout()) {
-            addViewInternal(footerLayout, lp);
+        if (null != footerLayout) {
+            if (this == footerLayout.getParent()) {
+                removeView(footerLayout);
+            }
+            if (mode.showFooterLoadingLayout()) {
+                addViewInternal(footerLayout, lp);
+            }
+            footerLayoutVisibility = footerLayout.getVisibility();
         }
 
+        // The layouts may have been replaced, so re-read their size
+        pullGeometry.valid = false;
+        measuredForWidth = measuredForHeight = -1;
+
         // Hide Loading Views
         refreshLoadingViewsSize();
+    }
 
-        // If we're not using Mode.BOTH, set currentMode to mode, otherwise
-        // set it to pull down
-        currentMode = (mode != Mode.BOTH) ? mode : Mode.PULL_FROM_START;
+    /**
+     * Creates the Header and/or Footer Layout if they haven't been yet. Unless
+     * they're styled through XML, they aren't created until the first pull
+     * (or refresh) in their direction, as many Views are never pulled.
+     *
+     * @param header - true if the Header Layout is needed
+     * @param footer - true if the Footer Layout is needed
+     */
+    private void ensureLoadingLayouts(boolean header, boolean footer) {
+        final boolean createHeader = header && null == headerLayout;
+        final boolean createFooter = footer && null == footerLayout;
+        if (!createHeader && !createFooter) {
+            return;
+        }
+
+        if (createHeader) {
+            headerLayout = obtainLoadingLayout(Mode.PULL_FROM_START);
+            headerLayoutPoolable = headerLayout.createdFromTheme;
+        }
+        if (createFooter) {
+            footerLayout = obtainLoadingLayout(Mode.PULL_FROM_END);
+            footerLayoutPoolable = footerLayout.createdFromTheme;
+        }
+
+        updateLoadingLayouts();
+
+        if (createHeader) {
+            layoutNewLoadingLayout(headerLayout);
+        }
+        if (createFooter) {
+            layoutNewLoadingLayout(footerLayout);
+        }
+    }
+
+    /**
+     * Takes a Loading Layout from the window's LoadingLayoutPool if we're
+     * attached and it has one, otherwise creates one. A subclass overriding
+     * createLoadingLayout() always gets its own.
+     *
+     * @param mode - PULL_FROM_START for the Header, PULL_FROM_END for the Footer
+     */
+    private LoadingLayoutBase obtainLoadingLayout(Mode mode) {
+        final Context context = getContext();
+        final boolean fromTheme = !overridesCreateLoadingLayout(getClass());
+        if (fromTheme && null != getWindowToken()) {
+            final LoadingLayoutBase layout = LoadingLayoutPool.get(this).acquire(context,
+                    loadingAnimationStyle, mode, getPullToRefreshScrollDirection());
+            if (null != layout) {
+                return layout;
+            }
+        }
+
+        // There weren't any XML attrs for the Loading Layouts (or they'd have
+        // been created in init()), so the theme's values are all they need
+        final TypedArray a = context.obtainStyledAttributes(null, R.styleable.PullToRefresh);
+        final LoadingLayoutBase layout = createLoadingLayout(context, mode, a);
+        a.recycle();
+
+        // A subclass overriding createLoadingLayout() may have customised the
+        // layout, even if it's one of ours, so it mustn't be shared
+        layout.createdFromTheme = fromTheme;
+        return layout;
+    }
+
+    /**
+     * @return true if the class, or one of its superclasses below us, has its
+     * own createLoadingLayout(). Looked up once per class.
+     */
+    private static boolean overridesCreateLoadingLayout(Class<?> cls) {
+        Boolean overrides = CREATE_LOADING_LAYOUT_OVERRIDES.get(cls);
+        if (null == overrides) {
+            overrides = false;
+            for (Class<?> c = cls; c != PullToRefreshBase.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("createLoadingLayout", Context.class, Mode.class, TypedArray.class);
+                    overrides = true;
+                    break;
+                } catch (NoSuchMethodException e) {
+                    // Not declared here, keep looking
+                }
+            }
+            CREATE_LOADING_LAYOUT_OVERRIDES.put(cls, overrides);
+        }
+        return overrides;
+    }
+
+    /**
+     * Gives the Loading Layouts back to the window's LoadingLayoutPool, if
+     * they can be shared, so that we don't hold on to them while detached.
+     * They'll be obtained again when next needed.
+     */
+    private void releaseLoadingLayouts() {
+        // Don't pull them out from under a refresh we'll be showing again
+        if (state != State.RESET || (!headerLayoutPoolable && !footerLayoutPoolable)) {
+            return;
+        }
+
+        final LoadingLayoutPool pool = LoadingLayoutPool.get(this);
+        if (headerLayoutPoolable) {
+            releaseLoadingLayout(pool, headerLayout, Mode.PULL_FROM_START);
+            headerLayout = null;
+            headerLayoutPoolable = false;
+        }
+        if (footerLayoutPoolable) {
+            releaseLoadingLayout(pool, footerLayout, Mode.PULL_FROM_END);
+            footerLayout = null;
+            footerLayoutPoolable = false;
+        }
+
+        pullGeometry.valid = false;
+        measuredForWidth = measuredForHeight = -1;
+    }
+
+    private void releaseLoadingLayout(LoadingLayoutPool pool, LoadingLayoutBase layout, Mode mode) {
+        if (this == layout.getParent()) {
+            // Our children have already been detached from the window, so
+            // only need taking out of the hierarchy
+            detachViewFromParent(layout);
+            removeDetachedView(layout, false);
+        }
+
+        pool.release(layout, loadingAnimationStyle, mode, getPullToRefreshScrollDirection());
+    }
+
+    /**
+     * If we've already been laid out, lays out a newly added Loading Layout
+     * straight away so that its size is known for the pull which needs it.
+     * The next layout pass, which adding it requested, puts it in place.
+     */
+    private void layoutNewLoadingLayout(LoadingLayoutBase layout) {
+        if (this != layout.getParent() || getWidth() == 0 || getHeight() == 0) {
+            return;
+        }
+
+        final int maximumPullScroll = getMaximumPullScroll();
+        final int width, height;
+        switch (getPullToRefreshScrollDirection()) {
+            case HORIZONTAL:
+                width = maximumPullScroll;
+                height = getHeight();
+                break;
+            case VERTICAL:
+            default:
+                width = getWidth();
+                height = maximumPullScroll;
+                break;
+        }
+        layout.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        layout.layout(0, 0, width, height);
+        pullGeometry.valid = false;
+    }
+
+    /**
+     * @return true if any attrs which only the Loading Layouts use were given
+     */
+    static boolean hasLoadingLayoutAttrs(TypedArray a) {
+        return a.hasValue(R.styleable.PullToRefresh_ptrHeaderBackground)
+                || a.hasValue(R.styleable.PullToRefresh_ptrHeaderTextAppearance)
+                || a.hasValue(R.styleable.PullToRefresh_ptrSubHeaderTextAppearance)
+                || a.hasValue(R.styleable.PullToRefresh_ptrHeaderTextColor)
+                || a.hasValue(R.styleable.PullToRefresh_ptrHeaderSubTextColor)
+                || a.hasValue(R.styleable.PullToRefresh_ptrDrawable)
+                || a.hasValue(R.styleable.PullToRefresh_ptrDrawableStart)
+                || a.hasValue(R.styleable.PullToRefresh_ptrDrawableEnd)
+                || a.hasValue(R.styleable.PullToRefresh_ptrDrawableTop)
+                || a.hasValue(R.styleable.PullToRefresh_ptrDrawableBottom)
+                || a.hasValue(R.styleable.PullToRefresh_ptrRotateDrawableWhilePulling)
+                || a.hasValue(R.styleable.PullToRefresh_ptrInflateLoadingLayout);
     }
 
     private void addRefreshableView(Context context, T refreshableView) {
@@ -1059,6 +2035,39 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     }
 
     private void callRefreshListener() {
+        // Only pulls from the start refresh, pulls from the end load more
+        if (state == State.REFRESHING && currentMode == Mode.PULL_FROM_START && isRefreshThrottled()) {
+            throttledRefreshCount++;
+            throttledRefreshInProgress = true;
+            if (null != onRefreshThrottledListener) {
+                onRefreshThrottledListener.onRefreshThrottled(this, lastRefreshTimeMillis);
+            } else {
+                // Give the refreshing Header/Footer a moment to be seen
+                postDelayed(throttledRefreshCompleteRunnable, getPullToRefreshScrollDurationLonger());
+            }
+            return;
+        }
+
+        executeRefresh();
+    }
+
+    private void executeRefresh() {
+        if (refreshCoalescing != RefreshCoalescing.NONE && isRefreshTaskRunning()) {
+            // Show the task which is still running, rather than starting
+            // another one alongside it
+            asyncRefresh = runningRefresh;
+            if (refreshTimeoutMillis > 0) {
+                postDelayed(refreshTimeoutRunnable, refreshTimeoutMillis);
+            }
+            coalesceRefresh();
+            return;
+        }
+
+        executedRefreshCount++;
+        if (null != refreshTask) {
+            startAsyncRefresh(refreshTask);
+        }
+
         if (null != onRefreshListener) {
             onRefreshListener.onRefresh(this);
         } else if (null != onRefreshListener2) {
@@ -1070,7 +2079,87 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         }
     }
 
+    private boolean isRefreshThrottled() {
+        return refreshThrottleMillis > 0 && lastRefreshTimeMillis > 0
+                && System.currentTimeMillis() - lastRefreshTimeMillis < refreshThrottleMillis;
+    }
+
+    /**
+     * @param succeeded - false if the refresh failed, or was throttled and so
+     *                  didn't get fresh data
+     */
+    private void completeRefresh(boolean succeeded) {
+        if (!isRefreshing()) {
+            return;
+        }
+
+        // A throttled refresh only counts if it revalidated the data
+        if (succeeded && (!throttledRefreshInProgress || null != onRefreshThrottledListener)) {
+            lastRefreshTimeMillis = System.currentTimeMillis();
+        }
+        throttledRefreshInProgress = false;
+        removeCallbacks(throttledRefreshCompleteRunnable);
+
+        if (followUpRefreshPending) {
+            // Stay refreshing, and run the refresh which was asked for while
+            // this one was in flight. It was asked for explicitly, so isn't
+            // throttled
+            followUpRefreshPending = false;
+            executeRefresh();
+            return;
+        }
+        setState(State.RESET);
+    }
+
+    private <R> void startAsyncRefresh(RefreshTask<T, R> task) {
+        // Only one refresh at a time
+        cancelAsyncRefresh();
+
+        final AsyncRefresh<R> refresh = new AsyncRefresh<>(task, currentMode);
+        asyncRefresh = runningRefresh = refresh;
+        if (refreshTimeoutMillis > 0) {
+            postDelayed(refreshTimeoutRunnable, refreshTimeoutMillis);
+        }
+        refreshExecutor.execute(refresh);
+    }
+
+    /**
+     * @return true if there was a task to cancel
+     */
+    private boolean cancelAsyncRefresh() {
+        removeCallbacks(refreshTimeoutRunnable);
+        if (null == asyncRefresh) {
+            return false;
+        }
+
+        final AsyncRefresh<?> refresh = asyncRefresh;
+        asyncRefresh = null;
+        if (refreshCoalescing == RefreshCoalescing.NONE) {
+            refresh.cancel(true);
+        }
+        // Otherwise let it finish, so that a new refresh can join it
+        return true;
+    }
+
+    private boolean isRefreshTaskRunning() {
+        return null != runningRefresh && !runningRefresh.isDone();
+    }
+
+    /**
+     * Only called when coalescing, as with {@link RefreshCoalescing#NONE}
+     * nothing joins the refresh in flight.
+     */
+    private void coalesceRefresh() {
+        coalescedRefreshCount++;
+        if (refreshCoalescing == RefreshCoalescing.FOLLOW_UP) {
+            followUpRefreshPending = true;
+        }
+    }
+
     private void init(Context context, AttributeSet attrs) {
+        nestedScrollingParentHelper = new NestedScrollingParentHelper(this);
+        nestedScrollingChildHelper = new NestedScrollingChildHelper(this);
+
         switch (getPullToRefreshScrollDirection()) {
             case HORIZONTAL:
                 setOrientation(LinearLayout.HORIZONTAL);
@@ -1085,6 +2174,7 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
         ViewConfiguration config = ViewConfiguration.get(context);
         touchSlop = config.getScaledTouchSlop();
+        maximumVelocity = config.getScaledMaximumFlingVelocity();
 
         // Styleables from XML
         TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.PullToRefresh);
@@ -1103,9 +2193,12 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         refreshableView = createRefreshableView(context, attrs);
         addRefreshableView(context, refreshableView);
 
-        // We need to create now layouts now
-        headerLayout = createLoadingLayout(context, Mode.PULL_FROM_START, a);
-        footerLayout = createLoadingLayout(context, Mode.PULL_FROM_END, a);
+        // The Loading Layouts are created lazily, unless they've been given
+        // attrs which are only available now
+        if (hasLoadingLayoutAttrs(a)) {
+            headerLayout = createLoadingLayout(context, Mode.PULL_FROM_START, a);
+            footerLayout = createLoadingLayout(context, Mode.PULL_FROM_END, a);
+        }
 
         /*
          * Styleables from XML
@@ -1132,92 +2225,429 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
                     R.styleable.PullToRefresh_ptrScrollingWhileRefreshingEnabled, false);
         }
 
-        // Let the derivative classes have a go at handling attributes, then
-        // recycle them...
-        handleStyledAttributes(a);
-        a.recycle();
-
-        // Finally update the UI for the modes
-        updateUIForMode();
+        if (a.hasValue(R.styleable.PullToRefresh_ptrEagerRefresh)) {
+            eagerRefreshEnabled = a.getBoolean(R.styleable.PullToRefresh_ptrEagerRefresh, false);
+        }
+
+        if (a.hasValue(R.styleable.PullToRefresh_ptrPullResistance)) {
+            pullResistance = CurvePullResistance.mapIntToValue(
+                    a.getInteger(R.styleable.PullToRefresh_ptrPullResistance, 0));
+        }
+
+        if (a.hasValue(R.styleable.PullToRefresh_ptrNestedScrollingEnabled)) {
+            setNestedScrollingEnabled(a.getBoolean(R.styleable.PullToRefresh_ptrNestedScrollingEnabled, false));
+        }
+
+        if (a.hasValue(R.styleable.PullToRefresh_ptrRefreshCoalescing)) {
+            refreshCoalescing = RefreshCoalescing.mapIntToValue(
+                    a.getInteger(R.styleable.PullToRefresh_ptrRefreshCoalescing, 0));
+        }
+
+        if (a.hasValue(R.styleable.PullToRefresh_ptrRefreshThrottle)) {
+            setRefreshThrottle(a.getInteger(R.styleable.PullToRefresh_ptrRefreshThrottle, 0));
+        }
+
+        if (a.hasValue(R.styleable.PullToRefresh_ptrSettleMode)) {
+            settleMode = SettleMode.mapIntToValue(a.getInteger(R.styleable.PullToRefresh_ptrSettleMode, 0));
+        }
+
+        // Let the derivative classes have a go at handling attributes, then
+        // recycle them...
+        handleStyledAttributes(a);
+        a.recycle();
+
+        // Finally update the UI for the modes
+        updateUIForMode();
+    }
+
+    /**
+     * setHeaderScroll() is called for every scroll value, so only pass on
+     * actual visibility changes to avoid invalidating the Loading Layout.
+     */
+    private void setHeaderLayoutVisibility(int visibility) {
+        if (null != headerLayout && headerLayoutVisibility != visibility) {
+            headerLayoutVisibility = visibility;
+            layoutVisibilityChangeCount++;
+            headerLayout.setVisibility(visibility);
+        }
+    }
+
+    private void setFooterLayoutVisibility(int visibility) {
+        if (null != footerLayout && footerLayoutVisibility != visibility) {
+            footerLayoutVisibility = visibility;
+            layoutVisibilityChangeCount++;
+            footerLayout.setVisibility(visibility);
+        }
+    }
+
+    /**
+     * Called when the user lets go of a pull, whether it came from our own
+     * touch handling or from nested scrolling.
+     */
+    private void onPullReleased() {
+        if (state == State.RELEASE_TO_REFRESH
+                && (null != onRefreshListener || null != onRefreshListener2)) {
+            setState(State.REFRESHING, true);
+        } else if (isRefreshing()) {
+            // If we're already refreshing, just scroll back to the top
+            smoothScrollTo(0);
+        } else {
+            // If we haven't returned by here, then we're not in a state to
+            // pull, so just reset
+            setState(State.RESET);
+        }
+
+        // Updated here, once any settle has started, so the layer goes
+        // straight from dragging to settling
+        updateLayerType();
+    }
+
+    /**
+     * Pulls the Header/Footer out by the distance accumulated from nested
+     * scrolling, by feeding it through the same path as a touch drag.
+     */
+    private void applyNestedPull() {
+        final float distance = currentMode == Mode.PULL_FROM_END ? -nestedPullDistance : nestedPullDistance;
+        initialMotionX = initialMotionY = 0;
+        lastMotionX = lastMotionY = distance;
+        clearMotionVelocity();
+
+        if (nestedPullDistance > 0) {
+            setBeingDragged(true);
+        }
+        pullEvent();
+    }
+
+    private int getNestedScrollAxis() {
+        return getPullToRefreshScrollDirection() == Orientation.HORIZONTAL
+                ? android.support.v4.view.ViewCompat.SCROLL_AXIS_HORIZONTAL
+                : android.support.v4.view.ViewCompat.SCROLL_AXIS_VERTICAL;
+    }
+
+    private void setBeingDragged(boolean beingDragged) {
+        if (isBeingDragged != beingDragged) {
+            isBeingDragged = beingDragged;
+            updateLayerType();
+
+            if (beingDragged) {
+                // Only now that the drag has passed the touch slop in a
+                // direction, so taps and flings never create them
+                ensureLoadingLayouts(currentMode == Mode.PULL_FROM_START, currentMode == Mode.PULL_FROM_END);
+
+                // The refresh rate can change between drags, but not often
+                // enough to be worth checking during one
+                final float refreshRate = ViewCompat.getRefreshRate(this);
+                frameIntervalMillis = refreshRate >= 1f ? 1000f / refreshRate : DEFAULT_FRAME_INTERVAL_MS;
+            }
+        }
+    }
+
+    private void setSettling(boolean settling) {
+        if (isSettling != settling) {
+            isSettling = settling;
+            updateLayerType();
+        }
+    }
+
+    /**
+     * Applies the layer type wanted by the {@link LayerPolicy}, only touching
+     * the Refreshable View if it differs from the one already applied. We
+     * don't use layers on the Header/Footer Views as they change often, which
+     * would negate any HW layer performance boost.
+     */
+    private void updateLayerType() {
+        final int layerType = layerPolicy.wantsLayer(this, isBeingDragged, isSettling)
+                ? View.LAYER_TYPE_HARDWARE : View.LAYER_TYPE_NONE;
+
+        if (layerType != appliedLayerType && null != refreshableViewWrapper) {
+            appliedLayerType = layerType;
+            layerRebuildCount++;
+            ViewCompat.setLayerType(refreshableViewWrapper, layerType);
+        }
+    }
+
+    /**
+     * Updates the last motion position from a MOVE event, to where the finger
+     * actually is. On high refresh rate panels one event can carry several
+     * historical samples; we use the oldest of them to estimate the finger
+     * velocity, which {@link #getPredictedDragDistance(float)} uses.
+     */
+    private void updateLastMotion(MotionEvent event) {
+        final int pointerIndex = getActivePointerIndex(event);
+        final float x = event.getX(pointerIndex), y = event.getY(pointerIndex);
+
+        motionVelocityX = motionVelocityY = 0f;
+        if (event.getHistorySize() > 0) {
+            final long dt = event.getEventTime() - event.getHistoricalEventTime(0);
+            if (dt > 0) {
+                motionVelocityX = (x - event.getHistoricalX(pointerIndex, 0)) / dt;
+                motionVelocityY = (y - event.getHistoricalY(pointerIndex, 0)) / dt;
+            }
+        }
+
+        lastMotionX = x;
+        lastMotionY = y;
+        lastMotionEventTime = event.getEventTime();
+    }
+
+    private void clearMotionVelocity() {
+        motionVelocityX = motionVelocityY = 0f;
+    }
+
+    /**
+     * Predicts the drag distance for when the frame being drawn is shown, at
+     * the next vsync, by carrying the finger's velocity forward from its last
+     * MOVE. Called from the frame callback, so the next vsync is one frame
+     * interval from now. The prediction is never more than the touch slop.
+     *
+     * @param distance - Actual drag distance
+     */
+    private float getPredictedDragDistance(float distance) {
+        final float velocity = getPullToRefreshScrollDirection() == Orientation.HORIZONTAL
+                ? motionVelocityX : motionVelocityY;
+        if (velocity == 0f) {
+            return distance;
+        }
+
+        final float lead = Math.max(SystemClock.uptimeMillis() + frameIntervalMillis - lastMotionEventTime, 0f);
+        final float offset = clampPrediction(velocity * lead);
+        return Math.max(currentMode == Mode.PULL_FROM_END ? distance - offset : distance + offset, 0f);
+    }
+
+    private int getActivePointerIndex(MotionEvent event) {
+        final int pointerIndex = event.findPointerIndex(activePointerId);
+        return pointerIndex < 0 ? 0 : pointerIndex;
+    }
+
+    /**
+     * A new finger has gone down, so it takes over the pull.
+     */
+    private void onPointerDown(MotionEvent event) {
+        setActivePointer(event, event.getActionIndex());
+    }
+
+    /**
+     * If the finger which was pulling has gone up, hand the pull over to one
+     * of the remaining fingers.
+     */
+    private void onPointerUp(MotionEvent event) {
+        final int pointerIndex = event.getActionIndex();
+        if (event.getPointerId(pointerIndex) == activePointerId) {
+            setActivePointer(event, pointerIndex == 0 ? 1 : 0);
+        }
+    }
+
+    /**
+     * Moves the initial motion position along with the pointer change, so
+     * that the current pull distance is kept and the Header/Footer doesn't
+     * jump (and flip between states) when fingers are swapped.
+     */
+    private void setActivePointer(MotionEvent event, int pointerIndex) {
+        final float x = event.getX(pointerIndex), y = event.getY(pointerIndex);
+        initialMotionX += x - lastMotionX;
+        initialMotionY += y - lastMotionY;
+        lastMotionX = x;
+        lastMotionY = y;
+        clearMotionVelocity();
+
+        activePointerId = event.getPointerId(pointerIndex);
+        if (null != velocityTracker) {
+            velocityTracker.clear();
+        }
+    }
+
+    private float clampPrediction(float offset) {
+        return Math.max(-touchSlop, Math.min(touchSlop, offset));
+    }
+
+    /**
+     * Coalesces MOVE events so that the Header/Footer is scrolled at most
+     * once per frame, with the latest position.
+     */
+    private void schedulePullEvent() {
+        if (!pullEventPending) {
+            pullEventPending = true;
+            ViewCompat.postOnAnimation(this, pullEventRunnable);
+        }
+    }
+
+    private void trackVelocity(MotionEvent event) {
+        if (settleMode != SettleMode.SPRING) {
+            return;
+        }
+        if (null == velocityTracker) {
+            velocityTracker = VelocityTracker.obtain();
+        }
+        velocityTracker.addMovement(event);
+    }
+
+    /**
+     * Converts the finger velocity at release into a header scroll velocity,
+     * which is picked up by the next smooth scroll when using
+     * {@link SettleMode#SPRING}.
+     */
+    private void computeReleaseVelocity() {
+        if (null == velocityTracker || settleMode != SettleMode.SPRING) {
+            releaseVelocity = 0f;
+            return;
+        }
+
+        velocityTracker.computeCurrentVelocity(1000, maximumVelocity);
+        final float velocity;
+        switch (getPullToRefreshScrollDirection()) {
+            case HORIZONTAL:
+                velocity = velocityTracker.getXVelocity(activePointerId);
+                break;
+            case VERTICAL:
+            default:
+                velocity = velocityTracker.getYVelocity(activePointerId);
+                break;
+        }
+        velocityTracker.clear();
+
+        // The Header/Footer moves as fast as the PullResistance says it does
+        // for a drag of the length we were released at
+        final boolean hasFriction = currentMode == Mode.PULL_FROM_END ? hasPullUpFriction : hasPullDownFriction;
+        final float slope = hasFriction
+                ? pullResistance.getPullScrollSlope(getDragDistance(), getMaximumPullScroll()) : 1f;
+        releaseVelocity = -velocity * slope;
     }
 
     private boolean isReadyForPull() {
         switch (mode) {
             case PULL_FROM_START:
-                return isReadyForPullStart();
+                return isReadyForPullStartCached();
             case PULL_FROM_END:
-                return isReadyForPullEnd();
+                return isReadyForPullEndCached();
             case BOTH:
-                return isReadyForPullEnd() || isReadyForPullStart();
+                return isReadyForPullEndCached() || isReadyForPullStartCached();
             default:
                 return false;
         }
     }
 
+    /**
+     * Starts caching {@link #isReadyForPullStart()} and
+     * {@link #isReadyForPullEnd()} for the input event with the given time.
+     * Both onInterceptTouchEvent() and onTouchEvent() see the same event, so
+     * the (possibly expensive) checks only run once per event.
+     */
+    private void startReadyForPullCache(long eventTime) {
+        if (eventTime != readyForPullCacheEventTime) {
+            readyForPullCacheEventTime = eventTime;
+            readyForPullCacheFlags = 0;
+        }
+    }
+
+    private boolean isReadyForPullStartCached() {
+        if ((readyForPullCacheFlags & READY_START_CHECKED) == 0) {
+            readyForPullCacheFlags |= READY_START_CHECKED;
+            if (isReadyForPullStart()) {
+                readyForPullCacheFlags |= READY_START;
+            }
+        }
+        return (readyForPullCacheFlags & READY_START) != 0;
+    }
+
+    private boolean isReadyForPullEndCached() {
+        if ((readyForPullCacheFlags & READY_END_CHECKED) == 0) {
+            readyForPullCacheFlags |= READY_END_CHECKED;
+            if (isReadyForPullEnd()) {
+                readyForPullCacheFlags |= READY_END;
+            }
+        }
+        return (readyForPullCacheFlags & READY_END) != 0;
+    }
+
     /**
      * Actions a Pull Event
      * return true if the Event has been handled, false if there has been no
      * change
      */
     private void pullEvent() {
-        final int newScrollValue;
-        final int itemDimension;
-        final float initialMotionValue, lastMotionValue;
-
-        switch (getPullToRefreshScrollDirection()) {
-            case HORIZONTAL:
-                initialMotionValue = initialMotionX;
-                lastMotionValue = lastMotionX;
-                break;
-            case VERTICAL:
-            default:
-                initialMotionValue = initialMotionY;
-                lastMotionValue = lastMotionY;
-                break;
-        }
+        final float distance = getDragDistance();
+        final int itemDimension = currentMode == Mode.PULL_FROM_END ? getFooterSize() : getHeaderSize();
 
-        switch (currentMode) {
-            case PULL_FROM_END:
-                if (hasPullUpFriction) {
-                    newScrollValue = Math.round(Math.max(initialMotionValue - lastMotionValue, 0) / FRICTION);
-                } else {
-                    newScrollValue = Math.round(Math.max(initialMotionValue - lastMotionValue, 0));
-                }
-                itemDimension = getFooterSize();
-                break;
-            case PULL_FROM_START:
-            default:
-                if (hasPullDownFriction) {
-                    newScrollValue = Math.round(Math.min(initialMotionValue - lastMotionValue, 0) / FRICTION);
-                } else {
-                    newScrollValue = Math.round(Math.min(initialMotionValue - lastMotionValue, 0));
-                }
-                itemDimension = getHeaderSize();
-                break;
-        }
+        // The state follows where the finger actually is, only what's drawn
+        // is predicted ahead
+        final int scrollValue = getPullScrollValue(distance);
+        final int newScrollValue = getPullScrollValue(getPredictedDragDistance(distance));
 
         setHeaderScroll(newScrollValue);
 
-        if (newScrollValue != 0 && !isRefreshing()) {
+        // The Loading Layout may have only just been created, and not know its
+        // size yet
+        if (isRefreshing() || itemDimension <= 0) {
+            return;
+        }
+
+        if (newScrollValue != 0) {
             float scale = Math.abs(newScrollValue) / (float) itemDimension;
             switch (currentMode) {
                 case PULL_FROM_END:
-                    footerLayout.onPull(scale);
+                    getFooterLayout().onPull(scale);
                     break;
                 case PULL_FROM_START:
                 default:
-                    headerLayout.onPull(scale);
+                    getHeaderLayout().onPull(scale);
                     break;
             }
+        }
 
-            if (state != State.PULL_TO_REFRESH && itemDimension >= Math.abs(newScrollValue)) {
+        if (scrollValue != 0) {
+            if (state != State.PULL_TO_REFRESH && itemDimension >= Math.abs(scrollValue)) {
                 setState(State.PULL_TO_REFRESH);
-            } else if (state == State.PULL_TO_REFRESH && itemDimension < Math.abs(newScrollValue)) {
+            } else if (state == State.PULL_TO_REFRESH && itemDimension < Math.abs(scrollValue)) {
                 setState(State.RELEASE_TO_REFRESH);
             }
         }
     }
 
+    /**
+     * @param distance - Drag distance in the direction of the current pull
+     * @return Header scroll for the distance, through the PullResistance if
+     * there's friction
+     */
+    private int getPullScrollValue(float distance) {
+        switch (currentMode) {
+            case PULL_FROM_END:
+                if (hasPullUpFriction) {
+                    return pullResistance.getPullScroll(distance, getMaximumPullScroll());
+                }
+                return Math.round(distance);
+            case PULL_FROM_START:
+            default:
+                if (hasPullDownFriction) {
+                    return -pullResistance.getPullScroll(distance, getMaximumPullScroll());
+                }
+                return -Math.round(distance);
+        }
+    }
+
+    /**
+     * @return Distance the user has dragged in the direction of the current
+     * pull, never negative
+     */
+    private float getDragDistance() {
+        final float initialMotionValue, lastMotionValue;
+        switch (getPullToRefreshScrollDirection()) {
+            case HORIZONTAL:
+                initialMotionValue = initialMotionX;
+                lastMotionValue = lastMotionX;
+                break;
+            case VERTICAL:
+            default:
+                initialMotionValue = initialMotionY;
+                lastMotionValue = lastMotionY;
+                break;
+        }
+
+        if (currentMode == Mode.PULL_FROM_END) {
+            return Math.max(initialMotionValue - lastMotionValue, 0);
+        }
+        return Math.max(lastMotionValue - initialMotionValue, 0);
+    }
+
     private LayoutParams getLoadingLayoutLayoutParams() {
         switch (getPullToRefreshScrollDirection()) {
             case HORIZONTAL:
@@ -1231,13 +2661,30 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
     }
 
     private int getMaximumPullScroll() {
-        switch (getPullToRefreshScrollDirection()) {
-            case HORIZONTAL:
-                return Math.round(getWidth() / FRICTION);
-            case VERTICAL:
-            default:
-                return Math.round(getHeight() / FRICTION);
+        return getPullGeometry().maximumPullScroll;
+    }
+
+    /**
+     * @return The cached pull geometry, recalculating it if it has been
+     * invalidated by a size, layout or mode change
+     */
+    private PullGeometry getPullGeometry() {
+        final PullGeometry geometry = pullGeometry;
+        if (!geometry.valid) {
+            switch (getPullToRefreshScrollDirection()) {
+                case HORIZONTAL:
+                    geometry.maximumPullScroll = Math.round(getWidth() / FRICTION);
+                    break;
+                case VERTICAL:
+                default:
+                    geometry.maximumPullScroll = Math.round(getHeight() / FRICTION);
+                    break;
+            }
+            geometry.headerSize = null != headerLayout ? headerLayout.getContentSize() : 0;
+            geometry.footerSize = null != footerLayout ? footerLayout.getContentSize() : 0;
+            geometry.valid = true;
         }
+        return geometry;
     }
 
     /**
@@ -1252,10 +2699,6 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
     private void smoothScrollTo(int newScrollValue, long duration, long delayMillis,
                                 OnSmoothScrollFinishedListener listener) {
-        if (null != currentSmoothScrollRunnable) {
-            currentSmoothScrollRunnable.stop();
-        }
-
         final int oldScrollValue;
         switch (getPullToRefreshScrollDirection()) {
             case HORIZONTAL:
@@ -1272,14 +2715,17 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
                 // Default interpolator is a Decelerate Interpolator
                 scrollAnimationInterpolator = new DecelerateInterpolator();
             }
-            currentSmoothScrollRunnable = new SmoothScrollRunnable(oldScrollValue, newScrollValue, duration, listener);
-
-            if (delayMillis > 0) {
-                postDelayed(currentSmoothScrollRunnable, delayMillis);
+            if (settleMode == SettleMode.SPRING && delayMillis <= 0) {
+                smoothScrollRunnable.startSpring(oldScrollValue, newScrollValue, releaseVelocity, listener);
             } else {
-                post(currentSmoothScrollRunnable);
+                smoothScrollRunnable.start(oldScrollValue, newScrollValue, duration, delayMillis, listener);
             }
+        } else {
+            smoothScrollRunnable.stop();
         }
+
+        // The release velocity only applies to the settle which follows it
+        releaseVelocity = 0f;
     }
 
     private void smoothScrollToAndBack(int y) {
@@ -1338,6 +2784,134 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         }
     }
 
+    public enum SettleMode {
+        /**
+         * Settle over a fixed duration, see
+         * {@link PullToRefreshBase#getPullToRefreshScrollDuration()}.
+         */
+        DURATION,
+
+        /**
+         * Settle using a critically damped spring, seeded with the velocity
+         * the user released the pull with. Never overshoots the target.
+         */
+        SPRING;
+
+        static SettleMode getDefault() {
+            return DURATION;
+        }
+
+        /**
+         * Maps an int to a specific settle mode, used when inflating the view
+         * from XML where the mode is given through a attr int.
+         *
+         * @param modeInt - int to map a SettleMode to
+         * @return SettleMode that modeInt maps to, or DURATION by default.
+         */
+        static SettleMode mapIntToValue(int modeInt) {
+            switch (modeInt) {
+                case 0x0:
+                default:
+                    return DURATION;
+                case 0x1:
+                    return SPRING;
+            }
+        }
+    }
+
+    public enum RefreshCoalescing {
+        /**
+         * Don't coalesce. A new refresh cancels any {@link RefreshTask} which
+         * is still running, and {@link PullToRefreshBase#setRefreshing()}
+         * does nothing while refreshing.
+         */
+        NONE,
+
+        /**
+         * A refresh asked for while one is in flight joins it, and completes
+         * when it does. Running {@link RefreshTask}s aren't interrupted, so
+         * that they can be joined.
+         */
+        ATTACH,
+
+        /**
+         * As {@link #ATTACH}, but once the refresh in flight completes, one
+         * more refresh is run, however many were asked for in the meantime.
+         */
+        FOLLOW_UP;
+
+        static RefreshCoalescing getDefault() {
+            return NONE;
+        }
+
+        /**
+         * Maps an int to a specific coalescing, used when inflating the view
+         * from XML where the coalescing is given through a attr int.
+         *
+         * @param modeInt - int to map a RefreshCoalescing to
+         * @return RefreshCoalescing that modeInt maps to, or NONE by default.
+         */
+        static RefreshCoalescing mapIntToValue(int modeInt) {
+            switch (modeInt) {
+                case 0x0:
+                default:
+                    return NONE;
+                case 0x1:
+                    return ATTACH;
+                case 0x2:
+                    return FOLLOW_UP;
+            }
+        }
+    }
+
+    public enum LayerPolicy {
+        /**
+         * Never use a Hardware Layer.
+         */
+        NEVER,
+
+        /**
+         * Use a Hardware Layer while the user is dragging.
+         */
+        DRAGGING,
+
+        /**
+         * Use a Hardware Layer while the Header/Footer is settling back.
+         */
+        SETTLING,
+
+        /**
+         * Use a Hardware Layer while dragging or settling, as long as the
+         * Refreshable View is no bigger than the screen. Larger layers cost
+         * more texture memory than they save in redraws.
+         */
+        AUTO;
+
+        static LayerPolicy getDefault() {
+            return NEVER;
+        }
+
+        boolean wantsLayer(PullToRefreshBase<?> view, boolean dragging, boolean settling) {
+            switch (this) {
+                case DRAGGING:
+                    return dragging;
+                case SETTLING:
+                    return settling;
+                case AUTO:
+                    if (!dragging && !settling) {
+                        return false;
+                    }
+                    final FrameLayout wrapper = view.getRefreshableViewWrapper();
+                    final DisplayMetrics dm = view.getResources().getDisplayMetrics();
+                    return wrapper.getWidth() > 0 && wrapper.getHeight() > 0
+                            && (long) wrapper.getWidth() * wrapper.getHeight() <= (long) dm.widthPixels * dm.heightPixels;
+                case NEVER:
+                default:
+                    return false;
+            }
+        }
+    }
+
     public enum Mode {
         /**
          * Disable all Pull-to-Refresh gesture and Refreshing handling
@@ -1447,6 +3021,22 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
     }
 
+    /**
+     * Listener that allows you to be notified when the user has scrolled close
+     * enough to the end of the data that the next page should be loaded. See
+     * {@link PullToRefreshAdapterViewBase#setOnLoadMoreListener} and
+     * {@link PullToRefreshRecyclerView#setOnLoadMoreListener}.
+     */
+    public interface OnLoadMoreListener {
+
+        /**
+         * Called once for each page, when the user has scrolled within the
+         * prefetch distance of the end of the data
+         */
+        void onLoadMore();
+
+    }
+
     /**
      * Listener that allows you to be notified when the user has started or
      * finished a touch event. Useful when you want to append extra UI events
@@ -1518,6 +3108,70 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
 
     }
 
+    /**
+     * Listener called instead of the refresh listener when a pull is
+     * throttled, see {@link #setRefreshThrottle(long)}. Use it to run a
+     * lightweight check that the data is still fresh (such as a conditional
+     * request), then call {@link #onRefreshComplete()}.
+     *
+     * @param <V> - Type of the Refreshable View
+     */
+    public interface OnRefreshThrottledListener<V extends View> {
+
+        /**
+         * @param refreshView     - View which was pulled
+         * @param lastRefreshTime - Time the last successful refresh completed,
+         *                        as {@link System#currentTimeMillis()}
+         */
+        void onRefreshThrottled(PullToRefreshBase<V> refreshView, long lastRefreshTime);
+
+    }
+
+    /**
+     * A refresh which is run on the refresh {@link Executor}, see
+     * {@link #setRefreshTask(RefreshTask)}.
+     *
+     * @param <V> - Type of the Refreshable View
+     * @param <R> - Type of the result
+     */
+    public interface RefreshTask<V extends View, R> {
+
+        /**
+         * Called on the refresh Executor to do the refresh. If the work is
+         * already asynchronous, wait for it here (e.g. with Future.get()). When
+         * the task is cancelled the thread is interrupted.
+         *
+         * @param direction - One of {@link Mode#PULL_FROM_START} or
+         *                  {@link Mode#PULL_FROM_END}
+         * @return The result, passed to {@link #onRefreshResult}
+         * @throws Exception if the refresh failed, passed to
+         *                   {@link #onRefreshFailed}
+         */
+        R onRefreshInBackground(Mode direction) throws Exception;
+
+        /**
+         * Called on the main thread with the result, just before
+         * {@link PullToRefreshBase#onRefreshComplete()}.
+         *
+         * @param refreshView - View which was refreshed
+         * @param direction   - Direction of the refresh
+         * @param result      - Result of {@link #onRefreshInBackground(Mode)}
+         */
+        void onRefreshResult(PullToRefreshBase<V> refreshView, Mode direction, R result);
+
+        /**
+         * Called on the main thread if the refresh threw or timed out, just
+         * before {@link PullToRefreshBase#onRefreshComplete()}. Not called if
+         * the refresh was cancelled.
+         *
+         * @param refreshView - View which was refreshed
+         * @param direction   - Direction of the refresh
+         * @param error       - What was thrown, or a {@link TimeoutException}
+         */
+        void onRefreshFailed(PullToRefreshBase<V> refreshView, Mode direction, Exception error);
+
+    }
+
     public enum Orientation {
         VERTICAL, HORIZONTAL
     }
@@ -1587,34 +3241,81 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
         }
     }
 
+    /**
+     * A single instance of this is kept per view and retargeted in place by
+     * {@link #start(int, int, long, long, OnSmoothScrollFinishedListener)}.
+     * Time is taken from {@link AnimationUtils#currentAnimationTimeMillis()}
+     * so each step lines up with the frame it is drawn in, rather than with
+     * whenever the runnable happened to be executed.
+     */
     final class SmoothScrollRunnable implements Runnable {
-        private final Interpolator interpolator;
-        private final int scrollToY;
-        private final int scrollFromY;
-        private final long duration;
+        private Interpolator interpolator;
+        private int scrollToY;
+        private int scrollFromY;
+        private long duration;
         private OnSmoothScrollFinishedListener listener;
 
-        private boolean continueRunning = true;
+        private boolean spring;
+        private float springVelocity;
+
+        private boolean continueRunning;
         private long startTime = -1;
         private int currentY = -1;
 
-        SmoothScrollRunnable(int fromY, int toY, long duration, OnSmoothScrollFinishedListener listener) {
+        void start(int fromY, int toY, long duration, long delayMillis, OnSmoothScrollFinishedListener listener) {
+            removeCallbacks(this);
+
             scrollFromY = fromY;
             scrollToY = toY;
             interpolator = scrollAnimationInterpolator;
             this.duration = duration;
             this.listener = listener;
+            spring = false;
+
+            continueRunning = true;
+            setSettling(true);
+            startTime = -1;
+            currentY = fromY;
+
+            if (delayMillis > 0) {
+                postDelayed(this, delayMillis);
+            } else {
+                ViewCompat.postOnAnimation(PullToRefreshBase.this, this);
+            }
+        }
+
+        void startSpring(int fromY, int toY, float velocity, OnSmoothScrollFinishedListener listener) {
+            removeCallbacks(this);
+
+            scrollFromY = fromY;
+            scrollToY = toY;
+            this.listener = listener;
+            spring = true;
+
+            // Velocity away from the target only adds frames, so drop it
+            springVelocity = (velocity * (fromY - toY) < 0) ? velocity : 0f;
+
+            continueRunning = true;
+            setSettling(true);
+            startTime = -1;
+            currentY = fromY;
+
+            ViewCompat.postOnAnimation(PullToRefreshBase.this, this);
         }
 
         @Override
         public void run() {
+            final long frameTime = AnimationUtils.currentAnimationTimeMillis();
 
             /*
              * Only set startTime if this is the first time we're starting,
              * else actually calculate the Y delta
              */
             if (startTime == -1) {
-                startTime = System.currentTimeMillis();
+                startTime = frameTime;
+            } else if (spring) {
+                currentY = computeSpringPosition((frameTime - startTime) / 1000f);
+                setHeaderScroll(currentY);
             } else {
 
                 /*
@@ -1622,7 +3323,7 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
                  * calculations. We use 1000 as it gives us good accuracy and
                  * small rounding errors
                  */
-                long normalizedTime = (1000 * (System.currentTimeMillis() - startTime)) / duration;
+                long normalizedTime = (1000 * (frameTime - startTime)) / duration;
                 normalizedTime = Math.max(Math.min(normalizedTime, 1000), 0);
 
                 final int deltaY = Math.round((scrollFromY - scrollToY)
@@ -1635,15 +3336,123 @@ public abstract class PullToRefreshBase<T extends View> extends LinearLayout imp
             if (continueRunning && scrollToY != currentY) {
                 ViewCompat.postOnAnimation(PullToRefreshBase.this, this);
             } else {
-                if (null != listener) {
-                    listener.onSmoothScrollFinished();
+                // Clear before calling out, the listener may start us again
+                final OnSmoothScrollFinishedListener finishedListener = listener;
+                listener = null;
+                continueRunning = false;
+                setSettling(false);
+
+                if (null != finishedListener) {
+                    finishedListener.onSmoothScrollFinished();
                 }
             }
         }
 
+        /**
+         * Critically damped spring: x(t) = (a + b * t) * e^(-w * t), where a is
+         * the starting offset from the target and b = v0 + w * a. If the
+         * release velocity would carry us past the target we stop there.
+         */
+        private int computeSpringPosition(float t) {
+            final float omega = SPRING_NATURAL_FREQUENCY;
+            final float a = scrollFromY - scrollToY;
+            final float b = springVelocity + omega * a;
+            final float offset = (a + b * t) * (float) Math.exp(-omega * t);
+
+            if (Math.abs(offset) < 0.5f || offset * a < 0) {
+                return scrollToY;
+            }
+            return scrollToY + Math.round(offset);
+        }
+
         void stop() {
             continueRunning = false;
+            listener = null;
             removeCallbacks(this);
+            setSettling(false);
+        }
+    }
+
+    /**
+     * Snapshot of the sizes used on every pull event, so that the touch path
+     * doesn't need to query the Loading Layouts' children each time.
+     */
+    static final class PullGeometry {
+        boolean valid;
+        int maximumPullScroll;
+        int headerSize;
+        int footerSize;
+    }
+
+    /**
+     * Runs a {@link RefreshTask} and hands its outcome back to the main thread.
+     * Only the refresh which is still current gets delivered, anything
+     * cancelled or replaced in the meantime is dropped.
+     */
+    private final class AsyncRefresh<R> extends FutureTask<R> {
+
+        private final RefreshTask<T, R> task;
+        private final Mode direction;
+
+        private final Runnable deliverRunnable = new Runnable() {
+            @Override
+            public void run() {
+                deliver();
+            }
+        };
+
+        AsyncRefresh(final RefreshTask<T, R> task, final Mode direction) {
+            super(new Callable<R>() {
+                @Override
+                public R call() throws Exception {
+                    return task.onRefreshInBackground(direction);
+                }
+            });
+            this.task = task;
+            this.direction = direction;
+        }
+
+        @Override
+        protected void done() {
+            // Called on the Executor's thread, or whichever cancelled us
+            post(deliverRunnable);
+        }
+
+        void timeOut() {
+            if (asyncRefresh != this) {
+                return;
+            }
+            cancelAsyncRefresh();
+
+            // Don't go straight back to waiting on whatever timed out
+            followUpRefreshPending = false;
+            task.onRefreshFailed(PullToRefreshBase.this, direction, new TimeoutException());
+            completeRefresh(false);
+        }
+
+        private void deliver() {
+            if (runningRefresh == this) {
+                runningRefresh = null;
+            }
+            if (asyncRefresh != this || isCancelled()) {
+                return;
+            }
+            asyncRefresh = null;
+            removeCallbacks(refreshTimeoutRunnable);
+
+            boolean succeeded = false;
+            try {
+                task.onRefreshResult(PullToRefreshBase.this, direction, get());
+                succeeded = true;
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                task.onRefreshFailed(PullToRefreshBase.this, direction,
+                        cause instanceof Exception ? (Exception) cause : e);
+            } catch (InterruptedException | CancellationException e) {
+                // Can't happen, we're done and not cancelled
+                return;
+            }
+            completeRefresh(succeeded);
         }
     }
 
@@ -28,6 +28,12 @@ import com.lance.pulltorefresh.internal.EmptyViewMethodAccessor;
 
 import java.lang.reflect.Constructor;
 
+/**
+ * A {@link ListView} which shows its Loading Layouts in a header and footer of
+ * the ListView while refreshing. Those Loading Layouts are created when first
+ * shown, but the empty frames holding them are added up front, as a ListView
+ * needs its headers before its Adapter is set.
+ */
 public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView> {
 
     private LoadingLayoutBase headerLoadingView;
@@ -38,6 +44,7 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
     private FrameLayout flSecondFooterLoadingFrame;
 
     private boolean listViewExtrasEnabled;
+    private boolean addedLvFooter;
 
     public PullToRefreshListView(Context context) {
         super(context);
@@ -84,7 +91,7 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
             case MANUAL_REFRESH_ONLY:
             case PULL_FROM_END:
                 origLoadingView = getFooterLayout();
-                listViewLoadingView = footerLoadingView;
+                listViewLoadingView = getListViewFooterLoadingView();
                 oppositeListViewLoadingView = headerLoadingView;
                 selection = refreshableView.getCount() - 1;
                 scrollToY = getScrollY() - getFooterSize();
@@ -92,7 +99,7 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
             case PULL_FROM_START:
             default:
                 origLoadingView = getHeaderLayout();
-                listViewLoadingView = headerLoadingView;
+                listViewLoadingView = getListViewHeaderLoadingView();
                 oppositeListViewLoadingView = footerLoadingView;
                 selection = 0;
                 scrollToY = getScrollY() + getHeaderSize();
@@ -103,8 +110,10 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
         origLoadingView.reset();
         origLoadingView.hideAllViews();
 
-        // Make sure the opposite end is hidden too
-        oppositeListViewLoadingView.setVisibility(View.GONE);
+        // Make sure the opposite end is hidden too, if it's been created
+        if (null != oppositeListViewLoadingView) {
+            oppositeListViewLoadingView.setVisibility(View.GONE);
+        }
 
         // Show the ListView Loading View and set it to refresh.
         listViewLoadingView.setVisibility(View.VISIBLE);
@@ -161,8 +170,9 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
         }
 
         // If the ListView header loading layout is showing, then we need to
-        // flip so that the original one is showing instead
-        if (listViewLoadingLayout.getVisibility() == View.VISIBLE) {
+        // flip so that the original one is showing instead. It won't have
+        // been created if it's never been shown
+        if (null != listViewLoadingLayout && listViewLoadingLayout.getVisibility() == View.VISIBLE) {
 
             // Set our Original View to Visible
             originalLoadingLayout.showInvisibleViews();
@@ -184,6 +194,17 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
         super.onReset();
     }
 
+    @Override
+    protected int getInternalHeaderViewCount() {
+        return null != flHeaderLoadingFrame ? 1 : 0;
+    }
+
+    @Override
+    protected int getInternalFooterViewCount() {
+        // The Loading Footer and the Second Footer are added together
+        return addedLvFooter ? 2 : 0;
+    }
+
     @Override
     protected LoadingLayoutProxy createLoadingLayoutProxy(final boolean includeStart, final boolean includeEnd) {
         LoadingLayoutProxy proxy = super.createLoadingLayoutProxy(includeStart, includeEnd);
@@ -191,10 +212,10 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
         if (listViewExtrasEnabled) {
             final Mode mode = getMode();
             if (includeStart && mode.showHeaderLoadingLayout()) {
-                proxy.addLayout(headerLoadingView);
+                proxy.addLayout(getListViewHeaderLoadingView());
             }
             if (includeEnd && mode.showFooterLoadingLayout()) {
-                proxy.addLayout(footerLoadingView);
+                proxy.addLayout(getListViewFooterLoadingView());
             }
         }
         return proxy;
@@ -222,20 +243,17 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
         listViewExtrasEnabled = a.getBoolean(R.styleable.PullToRefresh_ptrListViewExtrasEnabled, true);
 
         if (listViewExtrasEnabled) {
-            final FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT,
-                    FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.CENTER_HORIZONTAL);
-
-            // Create Loading Views ready for use later
+            // The frames have to be added to the ListView before its Adapter
+            // is set, but the Loading Views in them are only created once
+            // they're first shown, as ours are. Unless they've been given
+            // attrs which are only available now
             flHeaderLoadingFrame = new FrameLayout(getContext());
-            headerLoadingView = createLoadingLayout(getContext(), Mode.PULL_FROM_START, a);
-            headerLoadingView.setVisibility(View.GONE);
-            flHeaderLoadingFrame.addView(headerLoadingView, lp);
             refreshableView.addHeaderView(flHeaderLoadingFrame, null, false);
-
             flFooterLoadingFrame = new FrameLayout(getContext());
-            footerLoadingView = createLoadingLayout(getContext(), Mode.PULL_FROM_END, a);
-            footerLoadingView.setVisibility(View.GONE);
-            flFooterLoadingFrame.addView(footerLoadingView, lp);
+            if (hasLoadingLayoutAttrs(a)) {
+                headerLoadingView = createListViewLoadingView(flHeaderLoadingFrame, Mode.PULL_FROM_START, a);
+                footerLoadingView = createListViewLoadingView(flFooterLoadingFrame, Mode.PULL_FROM_END, a);
+            }
 
             flSecondFooterLoadingFrame = new FrameLayout(getContext());
 
@@ -249,6 +267,39 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
         }
     }
 
+    private LoadingLayoutBase getListViewHeaderLoadingView() {
+        if (null == headerLoadingView) {
+            headerLoadingView = createListViewLoadingView(flHeaderLoadingFrame, Mode.PULL_FROM_START);
+        }
+        return headerLoadingView;
+    }
+
+    private LoadingLayoutBase getListViewFooterLoadingView() {
+        if (null == footerLoadingView) {
+            footerLoadingView = createListViewLoadingView(flFooterLoadingFrame, Mode.PULL_FROM_END);
+        }
+        return footerLoadingView;
+    }
+
+    /**
+     * Creates a ListView Loading View from the theme's values alone.
+     */
+    private LoadingLayoutBase createListViewLoadingView(FrameLayout frame, Mode mode) {
+        final TypedArray a = getContext().obtainStyledAttributes(null, R.styleable.PullToRefresh);
+        final LoadingLayoutBase view = createListViewLoadingView(frame, mode, a);
+        a.recycle();
+        return view;
+    }
+
+    private LoadingLayoutBase createListViewLoadingView(FrameLayout frame, Mode mode, TypedArray a) {
+        final FrameLayout.LayoutParams lp = new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT,
+                FrameLayout.LayoutParams.WRAP_CONTENT, Gravity.CENTER_HORIZONTAL);
+        final LoadingLayoutBase view = createLoadingLayout(getContext(), mode, a);
+        view.setVisibility(View.GONE);
+        frame.addView(view, lp);
+        return view;
+    }
+
     @Override
     public void setHeaderLayout(LoadingLayoutBase headerLayout) {
         super.setHeaderLayout(headerLayout);
@@ -284,6 +335,12 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
             footerLoadingView = fl;
             footerLoadingView.setVisibility(View.GONE);
             flFooterLoadingFrame.addView(footerLoadingView, lp);
+
+            // If the old one has already been added, replace it. It was the
+            // last Footer View so the order is kept
+            if (addedLvFooter) {
+                refreshableView.addFooterView(flFooterLoadingFrame, null, false);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -317,8 +374,6 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
 
     protected class InternalListView extends ListView implements EmptyViewMethodAccessor {
 
-        private boolean mAddedLvFooter = false;
-
         public InternalListView(Context context, AttributeSet attrs) {
             super(context, attrs);
         }
@@ -355,10 +410,10 @@ public class PullToRefreshListView extends PullToRefreshAdapterViewBase<ListView
         @Override
         public void setAdapter(ListAdapter adapter) {
             // Add the Footer View at the last possible moment
-            if (null != flFooterLoadingFrame && !mAddedLvFooter) {
+            if (null != flFooterLoadingFrame && !addedLvFooter) {
                 addFooterView(flSecondFooterLoadingFrame, null, false);
                 addFooterView(flFooterLoadingFrame, null, false);
-                mAddedLvFooter = true;
+                addedLvFooter = true;
             }
             super.setAdapter(adapter);
         }
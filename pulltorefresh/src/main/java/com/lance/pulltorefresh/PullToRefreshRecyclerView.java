@@ -3,13 +3,17 @@ package com.lance.pulltorefresh;
 import android.content.Context;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.view.View;
+
+import com.lance.pulltorefresh.internal.RecyclerViewEdgeTracker;
 
 /**
  * Created by lindan on 16-12-6.
  * 扩展PullToRefresh开源框架，支持RecyclerView
  */
 public class PullToRefreshRecyclerView extends PullToRefreshBase<RecyclerView> {
+    //由createRefreshableView()在父类构造方法中创建，因此不能有初始值
+    private RecyclerViewEdgeTracker edgeTracker;
+
     public PullToRefreshRecyclerView(Context context) {
         super(context);
     }
@@ -33,56 +37,43 @@ public class PullToRefreshRecyclerView extends PullToRefreshBase<RecyclerView> {
 
     @Override
     protected RecyclerView createRefreshableView(Context context, AttributeSet attrs) {
-        return new RecyclerView(context, attrs);
+        RecyclerView recyclerView = new RecyclerView(context, attrs);
+        edgeTracker = new RecyclerViewEdgeTracker(recyclerView, false);
+        return recyclerView;
     }
 
-    @Override
-    protected boolean isReadyForPullEnd() {
-        return isLastItemVisible();
-    }
-
-    @Override
-    protected boolean isReadyForPullStart() {
-        return isFirstItemVisible();
+    /**
+     * 设置滑动到距离末尾prefetch距离以内时的加载更多回调，每页只回调一次
+     */
+    public final void setOnLoadMoreListener(OnLoadMoreListener listener) {
+        edgeTracker.getLoadMoreTrigger().setOnLoadMoreListener(listener);
     }
 
     /**
-     * 判断第一个Item是否完全可见
+     * 设置提前加载更多的距离（Item个数），默认为0，即最后一个Item可见时
      */
-    private boolean isFirstItemVisible() {
-        RecyclerView.Adapter<?> adapter = refreshableView.getAdapter();
-        //如果未设置Adapter或者没有数据，仍允许下拉刷新
-        if (adapter == null || adapter.getItemCount() == 0) {
-            return true;
-        }
-        //第一个item完全可见，可以刷新
-        return getFirstVisiblePosition() == 0 && refreshableView.getChildAt(0).getTop() >= refreshableView.getTop();
+    public final void setLoadMorePrefetchDistance(int items) {
+        edgeTracker.getLoadMoreTrigger().setPrefetchDistance(items);
     }
 
-    private boolean isLastItemVisible() {
-        RecyclerView.Adapter<?> adapter = refreshableView.getAdapter();
-        //如果未设置Adapter或者没有数据，仍允许上拉加载
-        if (adapter == null || adapter.getItemCount() == 0) {
-            return true;
-        }
-        //最后一个Item完全可见，可以刷新
-        int lastVisiblePosition = getLastVisiblePosition();
-        return lastVisiblePosition >= refreshableView.getAdapter().getItemCount() - 1 && refreshableView.getChildAt(refreshableView.getChildCount() - 1).getBottom() <= refreshableView.getBottom();
+    public final int getLoadMorePrefetchDistance() {
+        return edgeTracker.getLoadMoreTrigger().getPrefetchDistance();
     }
 
     /**
-     * 获取第一个可见Item的位置
+     * 允许在数据个数不变的情况下再次回调加载更多，如加载失败后重试
      */
-    private int getFirstVisiblePosition() {
-        View firstVisibleChild = refreshableView.getChildAt(0);
-        return firstVisibleChild != null ? refreshableView.getChildAdapterPosition(firstVisibleChild) : -1;
+    public final void resetLoadMore() {
+        edgeTracker.getLoadMoreTrigger().reset();
     }
 
-    /**
-     * 获取最后一个可见item的位置
-     */
-    private int getLastVisiblePosition() {
-        View lastVisibleChild = refreshableView.getChildAt(refreshableView.getChildCount() - 1);
-        return lastVisibleChild != null ? refreshableView.getChildAdapterPosition(lastVisibleChild) : -1;
+    @Override
+    protected boolean isReadyForPullEnd() {
+        return edgeTracker.isAtEnd();
+    }
+
+    @Override
+    protected boolean isReadyForPullStart() {
+        return edgeTracker.isAtStart();
     }
 }
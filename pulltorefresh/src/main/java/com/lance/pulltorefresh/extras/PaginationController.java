@@ -0,0 +1,387 @@
+package com.lance.pulltorefresh.extras;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+
+import com.lance.pulltorefresh.ILoadingLayout;
+import com.lance.pulltorefresh.PullToRefreshAdapterViewBase;
+import com.lance.pulltorefresh.PullToRefreshBase;
+import com.lance.pulltorefresh.PullToRefreshBase.Mode;
+import com.lance.pulltorefresh.PullToRefreshBase.OnLoadMoreListener;
+import com.lance.pulltorefresh.PullToRefreshBase.OnRefreshListener2;
+import com.lance.pulltorefresh.PullToRefreshHorizontalRecyclerView;
+import com.lance.pulltorefresh.PullToRefreshRecyclerView;
+import com.lance.pulltorefresh.R;
+
+/**
+ * Drives paged loading for a {@link PullToRefreshBase}. Pulling from the start
+ * reloads the first page, while pulling from the end (or scrolling within the
+ * prefetch distance, for Views which support
+ * {@link OnLoadMoreListener}) loads the next page.
+ * <p>
+ * The controller keeps track of the next page, whether a load is in flight,
+ * whether the end of the data has been reached and whether the last load
+ * failed. There is never more than one outstanding load in each
+ * {@link Direction}, and the Footer labels are updated to show when there's
+ * no more data or a load has failed.
+ * <p>
+ * Constructing a controller replaces the View's refresh listeners, and its
+ * {@link OnLoadMoreListener} where it has one.
+ */
+public class PaginationController<V extends View> {
+
+    private final PullToRefreshBase<V> refreshView;
+    private final PageLoader pageLoader;
+    private final int firstPage;
+
+    private final PageRequest[] inFlightRequests = new PageRequest[Direction.values().length];
+    private int generation;
+
+    private int nextPage;
+    private boolean endOfData;
+    private Direction failedDirection;
+
+    private CharSequence footerPullLabel;
+    private CharSequence footerReleaseLabel;
+    private CharSequence footerRefreshingLabel;
+    private FooterState footerState;
+
+    private final Runnable refreshCompleteRunnable = new Runnable() {
+        @Override
+        public void run() {
+            refreshView.onRefreshComplete();
+        }
+    };
+
+    /**
+     * Constructor
+     *
+     * @param refreshView - View to drive
+     * @param firstPage   - Number of the first page, usually 0 or 1
+     * @param pageLoader  - Called to load each page
+     */
+    public PaginationController(PullToRefreshBase<V> refreshView, int firstPage, PageLoader pageLoader) {
+        if (null == pageLoader) {
+            throw new IllegalArgumentException("PageLoader must not be null");
+        }
+        this.refreshView = refreshView;
+        this.pageLoader = pageLoader;
+        this.firstPage = firstPage;
+        nextPage = firstPage;
+
+        final Context context = refreshView.getContext();
+        footerPullLabel = context.getString(R.string.pull_to_refresh_pull_up_label);
+        footerReleaseLabel = context.getString(R.string.pull_to_refresh_release_load_label);
+        footerRefreshingLabel = context.getString(R.string.pull_to_refresh_loading);
+
+        refreshView.setOnRefreshListener(new OnRefreshListener2<V>() {
+            @Override
+            public void onPullDownToRefresh(PullToRefreshBase<V> refreshView) {
+                refresh();
+            }
+
+            @Override
+            public void onPullUpToRefresh(PullToRefreshBase<V> refreshView) {
+                if (!loadNextPage() && !isLoading(Direction.END)) {
+                    // Nothing to wait for, so put the Footer straight back
+                    refreshView.post(refreshCompleteRunnable);
+                }
+            }
+        });
+
+        final OnLoadMoreListener onLoadMoreListener = new OnLoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+                loadNextPage();
+            }
+        };
+        if (refreshView instanceof PullToRefreshAdapterViewBase) {
+            ((PullToRefreshAdapterViewBase<?>) refreshView).setOnLoadMoreListener(onLoadMoreListener);
+        } else if (refreshView instanceof PullToRefreshRecyclerView) {
+            ((PullToRefreshRecyclerView) refreshView).setOnLoadMoreListener(onLoadMoreListener);
+        } else if (refreshView instanceof PullToRefreshHorizontalRecyclerView) {
+            ((PullToRefreshHorizontalRecyclerView) refreshView).setOnLoadMoreListener(onLoadMoreListener);
+        }
+    }
+
+    /**
+     * Reloads the first page, unless a reload is already in flight. Any load
+     * of the next page which is in flight will have its result ignored.
+     *
+     * @return true if a load was started
+     */
+    public final boolean refresh() {
+        if (isLoading(Direction.START)) {
+            return false;
+        }
+
+        // Anything loaded after the old first page is now out of date
+        generation++;
+        start(Direction.START, firstPage);
+        return true;
+    }
+
+    /**
+     * Loads the next page, unless one is already in flight, the first page is
+     * being reloaded, or the end of the data has been reached.
+     *
+     * @return true if a load was started
+     */
+    public final boolean loadNextPage() {
+        if (endOfData || isLoading(Direction.START) || isLoading(Direction.END)) {
+            return false;
+        }
+        start(Direction.END, nextPage);
+        return true;
+    }
+
+    /**
+     * Retries the last load if it failed.
+     *
+     * @return true if a load was started
+     */
+    public final boolean retry() {
+        if (null == failedDirection) {
+            return false;
+        }
+
+        resetLoadMore();
+        return failedDirection == Direction.START ? refresh() : loadNextPage();
+    }
+
+    /**
+     * @param direction - Direction to check
+     * @return true if a load in the given direction hasn't finished yet
+     */
+    public final boolean isLoading(Direction direction) {
+        return null != inFlightRequests[direction.ordinal()];
+    }
+
+    /**
+     * @return true if the last page loaded said there were no more pages
+     */
+    public final boolean isEndOfData() {
+        return endOfData;
+    }
+
+    /**
+     * @return true if the last load failed, see {@link #retry()}
+     */
+    public final boolean hasFailed() {
+        return null != failedDirection;
+    }
+
+    /**
+     * @return Number of the page which will be loaded next from the end
+     */
+    public final int getNextPage() {
+        return nextPage;
+    }
+
+    /**
+     * Sets the Footer labels to use while there are more pages to load. The
+     * controller sets its own labels when there's no more data or a load has
+     * failed, and these are put back afterwards.
+     *
+     * @param pullLabel       - Label shown while pulling
+     * @param releaseLabel    - Label shown once released will load
+     * @param refreshingLabel - Label shown while loading
+     */
+    public void setFooterLabels(CharSequence pullLabel, CharSequence releaseLabel, CharSequence refreshingLabel) {
+        footerPullLabel = pullLabel;
+        footerReleaseLabel = releaseLabel;
+        footerRefreshingLabel = refreshingLabel;
+
+        // Force them to be applied again
+        footerState = null;
+        updateFooterLabels();
+    }
+
+    private void start(Direction direction, int page) {
+        final PageRequest request = new PageRequest(this, direction, page, generation);
+        inFlightRequests[direction.ordinal()] = request;
+        pageLoader.onLoadPage(request);
+    }
+
+    private void onRequestFinished(PageRequest request, boolean success, boolean hasMore) {
+        final int index = request.direction.ordinal();
+        if (inFlightRequests[index] != request) {
+            return;
+        }
+        inFlightRequests[index] = null;
+
+        if (request.generation == generation) {
+            if (success) {
+                nextPage = request.page + 1;
+                endOfData = !hasMore;
+                failedDirection = null;
+
+                // The item count may not have changed after a reload, so let
+                // the prefetch fire again
+                if (request.direction == Direction.START) {
+                    resetLoadMore();
+                }
+            } else {
+                failedDirection = request.direction;
+            }
+            updateFooterLabels();
+        }
+
+        if (refreshView.isRefreshing() && isCurrentPull(request.direction)) {
+            refreshView.onRefreshComplete();
+        }
+    }
+
+    private boolean isCurrentPull(Direction direction) {
+        final boolean pullFromEnd = refreshView.getCurrentMode() == Mode.PULL_FROM_END;
+        return direction == Direction.END ? pullFromEnd : !pullFromEnd;
+    }
+
+    private void resetLoadMore() {
+        if (refreshView instanceof PullToRefreshAdapterViewBase) {
+            ((PullToRefreshAdapterViewBase<?>) refreshView).resetLoadMore();
+        } else if (refreshView instanceof PullToRefreshRecyclerView) {
+            ((PullToRefreshRecyclerView) refreshView).resetLoadMore();
+        } else if (refreshView instanceof PullToRefreshHorizontalRecyclerView) {
+            ((PullToRefreshHorizontalRecyclerView) refreshView).resetLoadMore();
+        }
+    }
+
+    private void updateFooterLabels() {
+        if (!refreshView.getMode().showFooterLoadingLayout()) {
+            return;
+        }
+
+        final FooterState newState;
+        if (endOfData) {
+            newState = FooterState.END_OF_DATA;
+        } else if (failedDirection == Direction.END) {
+            newState = FooterState.FAILED;
+        } else {
+            newState = FooterState.NORMAL;
+        }
+        if (newState == footerState) {
+            return;
+        }
+        footerState = newState;
+
+        final Context context = refreshView.getContext();
+        final ILoadingLayout footer = refreshView.getLoadingLayoutProxy(false, true);
+        switch (newState) {
+            case END_OF_DATA:
+                final CharSequence noMoreLabel = context.getString(R.string.pull_to_refresh_no_more_label);
+                footer.setPullLabel(noMoreLabel);
+                footer.setReleaseLabel(noMoreLabel);
+                footer.setRefreshingLabel(noMoreLabel);
+                break;
+            case FAILED:
+                footer.setPullLabel(context.getString(R.string.pull_to_refresh_load_failed_label));
+                footer.setReleaseLabel(footerReleaseLabel);
+                footer.setRefreshingLabel(footerRefreshingLabel);
+                break;
+            case NORMAL:
+            default:
+                footer.setPullLabel(footerPullLabel);
+                footer.setReleaseLabel(footerReleaseLabel);
+                footer.setRefreshingLabel(footerRefreshingLabel);
+                break;
+        }
+    }
+
+    private enum FooterState {
+        NORMAL, END_OF_DATA, FAILED
+    }
+
+    public enum Direction {
+
+        /**
+         * Reloading the first page, after a pull from the start
+         */
+        START,
+
+        /**
+         * Loading the next page, after a pull from the end or a prefetch
+         */
+        END
+    }
+
+    /**
+     * Loads pages for a {@link PaginationController}.
+     */
+    public interface PageLoader {
+
+        /**
+         * Called on the main thread to load a page. The load can be done on any
+         * thread, but once finished one of {@link PageRequest#onLoaded(boolean)}
+         * or {@link PageRequest#onFailed()} must be called. Adding the loaded
+         * items to the Adapter is up to the implementation, and should be done
+         * on the main thread before calling {@link PageRequest#onLoaded(boolean)}.
+         *
+         * @param request - The page to load
+         */
+        void onLoadPage(PageRequest request);
+
+    }
+
+    /**
+     * A single page load, given to {@link PageLoader#onLoadPage(PageRequest)}.
+     * Only the first call to {@link #onLoaded(boolean)} or {@link #onFailed()}
+     * has any effect. Results for a page made out of date by a reload are
+     * ignored, see {@link #isStale()}.
+     */
+    public static final class PageRequest {
+
+        private final PaginationController<?> controller;
+        private final Direction direction;
+        private final int page;
+        private final int generation;
+
+        PageRequest(PaginationController<?> controller, Direction direction, int page, int generation) {
+            this.controller = controller;
+            this.direction = direction;
+            this.page = page;
+            this.generation = generation;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        /**
+         * @return true if the first page has been reloaded since this request
+         * was made, so its items shouldn't be added
+         */
+        public boolean isStale() {
+            return generation != controller.generation;
+        }
+
+        /**
+         * @param hasMore - false if this was the last page
+         */
+        public void onLoaded(final boolean hasMore) {
+            finish(true, hasMore);
+        }
+
+        public void onFailed() {
+            finish(false, false);
+        }
+
+        private void finish(final boolean success, final boolean hasMore) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                controller.onRequestFinished(this, success, hasMore);
+            } else {
+                controller.refreshView.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        controller.onRequestFinished(PageRequest.this, success, hasMore);
+                    }
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.lance.pulltorefresh.internal;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.util.LruCache;
+
+/**
+ * Process-wide cache of the Drawables used by the Loading and Indicator
+ * Layouts, keyed on resource id and screen density. Each View is given a new
+ * Drawable created from the cached {@link Drawable.ConstantState}, so they all
+ * share the one decoded Bitmap. Any View which changes its Drawable must
+ * {@link Drawable#mutate()} it first, as with any Drawable from Resources.
+ * <p>
+ * The cache is bounded by the size of the Bitmaps it holds, and is trimmed
+ * when the system asks for memory back. It's cleared on configuration
+ * changes, as resources other than density may then resolve differently.
+ * Should only be used from the main thread.
+ */
+public class DrawableCache {
+
+    /**
+     * Plenty for the few small indicator Drawables, even at high densities
+     */
+    private static final int MAX_SIZE_BYTES = 1024 * 1024;
+
+    /**
+     * What we count non-Bitmap Drawables as, which are just some objects
+     */
+    private static final int NON_BITMAP_SIZE_BYTES = 1024;
+
+    private static final LruCache<Long, Entry> CACHE = new LruCache<Long, Entry>(MAX_SIZE_BYTES) {
+        @Override
+        protected int sizeOf(Long key, Entry entry) {
+            return entry.sizeBytes;
+        }
+    };
+
+    private static boolean callbacksRegistered;
+
+    private static final ComponentCallbacks2 TRIM_CALLBACKS = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_MODERATE) {
+                // We're in the background and likely to be killed
+                CACHE.evictAll();
+            } else if (level >= TRIM_MEMORY_RUNNING_LOW || level == TRIM_MEMORY_BACKGROUND) {
+                // Drop the least recently used half
+                CACHE.trimToSize(MAX_SIZE_BYTES / 2);
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            CACHE.evictAll();
+        }
+
+        @Override
+        public void onLowMemory() {
+            CACHE.evictAll();
+        }
+    };
+
+    /**
+     * Equivalent of {@link Resources#getDrawable(int)}, but shares the
+     * decoded Drawable with anyone else who has asked for it.
+     *
+     * @param context - Context to get the Resources from
+     * @param resId   - Id of the Drawable
+     * @return A new Drawable, sharing its state with the cached one
+     */
+    public static Drawable getDrawable(Context context, int resId) {
+        registerCallbacks(context);
+
+        final Resources res = context.getResources();
+        final Long key = ((long) res.getDisplayMetrics().densityDpi << 32) | (resId & 0xffffffffL);
+        final Entry entry = CACHE.get(key);
+        if (null != entry) {
+            return entry.state.newDrawable(res);
+        }
+
+        final Drawable drawable = res.getDrawable(resId);
+        final Drawable.ConstantState state = drawable.getConstantState();
+        if (null != state) {
+            CACHE.put(key, new Entry(state, sizeOf(drawable)));
+        }
+        return drawable;
+    }
+
+    private static void registerCallbacks(Context context) {
+        if (!callbacksRegistered) {
+            context.getApplicationContext().registerComponentCallbacks(TRIM_CALLBACKS);
+            callbacksRegistered = true;
+        }
+    }
+
+    private static int sizeOf(Drawable drawable) {
+        if (drawable instanceof BitmapDrawable) {
+            final BitmapDrawable bitmapDrawable = (BitmapDrawable) drawable;
+            if (null != bitmapDrawable.getBitmap()) {
+                return bitmapDrawable.getBitmap().getByteCount();
+            }
+        }
+        return NON_BITMAP_SIZE_BYTES;
+    }
+
+    private static final class Entry {
+        final Drawable.ConstantState state;
+        final int sizeBytes;
+
+        Entry(Drawable.ConstantState state, int sizeBytes) {
+            this.state = state;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class IndicatorLayout extends FrameLayout implements AnimationListener {
         super(context);
         arrowImageView = new ImageView(context);
 
-        Drawable arrowD = getResources().getDrawable(R.mipmap.indicator_arrow);
+        Drawable arrowD = DrawableCache.getDrawable(context, R.mipmap.indicator_arrow);
         arrowImageView.setImageDrawable(arrowD);
 
         final int padding = getResources().getDimensionPixelSize(R.dimen.indicator_internal_padding);
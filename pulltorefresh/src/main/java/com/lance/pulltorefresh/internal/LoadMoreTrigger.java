@@ -0,0 +1,70 @@
+package com.lance.pulltorefresh.internal;
+
+import com.lance.pulltorefresh.PullToRefreshBase.OnLoadMoreListener;
+
+/**
+ * Calls an {@link OnLoadMoreListener} once the last visible item comes within
+ * the prefetch distance of the end of the data, which can happen mid-fling.
+ * Each request is only made once for a given item count, so the listener
+ * isn't called again until the data has changed (normally when the next page
+ * has been added) or {@link #reset()} is called.
+ */
+public class LoadMoreTrigger {
+
+    private static final int NOT_REQUESTED = -1;
+
+    private OnLoadMoreListener onLoadMoreListener;
+    private int prefetchDistance;
+    private int requestedItemCount = NOT_REQUESTED;
+
+    public void setOnLoadMoreListener(OnLoadMoreListener listener) {
+        onLoadMoreListener = listener;
+    }
+
+    /**
+     * @param items - How many items from the end the last visible item should
+     *              be before a load is requested. 0 means only once the last
+     *              item is visible.
+     */
+    public void setPrefetchDistance(int items) {
+        if (items < 0) {
+            throw new IllegalArgumentException("Prefetch distance must not be negative");
+        }
+        prefetchDistance = items;
+    }
+
+    public int getPrefetchDistance() {
+        return prefetchDistance;
+    }
+
+    /**
+     * Allows the listener to be called again for the current item count, for
+     * instance to retry after a failed load.
+     */
+    public void reset() {
+        requestedItemCount = NOT_REQUESTED;
+    }
+
+    /**
+     * Called whenever the visible items have changed, such as on scroll.
+     *
+     * @param lastVisiblePosition - Position of the last visible item, relative
+     *                            to the first item of the data
+     * @param itemCount           - Number of items of data
+     */
+    public void onItemsScrolled(int lastVisiblePosition, int itemCount) {
+        if (null == onLoadMoreListener || itemCount <= 0 || lastVisiblePosition < 0) {
+            return;
+        }
+
+        // We've already asked for the data after these items
+        if (itemCount == requestedItemCount) {
+            return;
+        }
+
+        if (lastVisiblePosition >= itemCount - 1 - prefetchDistance) {
+            requestedItemCount = itemCount;
+            onLoadMoreListener.onLoadMore();
+        }
+    }
+}
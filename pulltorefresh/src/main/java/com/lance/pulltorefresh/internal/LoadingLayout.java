@@ -61,14 +61,19 @@ abstract class LoadingLayout extends LoadingLayoutBase {
         this.mode = mode;
         this.scrollDirection = scrollDirection;
 
-        switch (scrollDirection) {
-            case HORIZONTAL:
-                LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_horizontal, this);
-                break;
-            case VERTICAL:
-            default:
-                LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_vertical, this);
-                break;
+        if (attrs.getBoolean(R.styleable.PullToRefresh_ptrInflateLoadingLayout, false)) {
+            switch (scrollDirection) {
+                case HORIZONTAL:
+                    LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_horizontal, this);
+                    break;
+                case VERTICAL:
+                default:
+                    LayoutInflater.from(context).inflate(R.layout.pull_to_refresh_header_vertical, this);
+                    break;
+            }
+        } else {
+            // Much quicker than inflating, and builds the same Views
+            LoadingViewBuilder.buildHeader(this, scrollDirection);
         }
 
         innerLayout = (FrameLayout) findViewById(R.id.fl_inner);
@@ -163,7 +168,7 @@ abstract class LoadingLayout extends LoadingLayoutBase {
 
         // If we don't have a user defined drawable, load the default
         if (null == imageDrawable) {
-            imageDrawable = context.getResources().getDrawable(getDefaultDrawableResId());
+            imageDrawable = DrawableCache.getDrawable(context, getDefaultDrawableResId());
         }
 
         // Set Drawable, and save width/height
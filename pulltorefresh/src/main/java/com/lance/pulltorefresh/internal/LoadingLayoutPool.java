@@ -0,0 +1,125 @@
+package com.lance.pulltorefresh.internal;
+
+import android.content.Context;
+import android.view.View;
+
+import com.lance.pulltorefresh.LoadingLayoutBase;
+import com.lance.pulltorefresh.PullToRefreshBase.AnimationStyle;
+import com.lance.pulltorefresh.PullToRefreshBase.Mode;
+import com.lance.pulltorefresh.PullToRefreshBase.Orientation;
+import com.lance.pulltorefresh.R;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds on to LoadingLayouts which PullToRefresh Views have finished with,
+ * so that other PullToRefresh Views in the same window (such as the pages of
+ * a ViewPager) can use them rather than creating their own. There is one pool
+ * per window, kept as a tag on its root View so that it goes away with it.
+ * <p>
+ * Only LoadingLayouts which have been created from the theme's values, and
+ * not changed since, should be put in the pool, as they're handed out to any
+ * View asking for the same {@link AnimationStyle}, {@link Mode} and
+ * {@link Orientation}.
+ */
+public class LoadingLayoutPool {
+
+    /**
+     * Only a few Views are ever shown at once, so there's no point keeping
+     * more than this of each kind
+     */
+    private static final int MAX_POOLED_PER_KEY = 2;
+
+    private final Map<Key, ArrayList<LoadingLayoutBase>> pooledLayouts = new HashMap<>();
+
+    /**
+     * @param view - A View in the window, which should be attached
+     * @return The pool for the window the View is in
+     */
+    public static LoadingLayoutPool get(View view) {
+        final View root = view.getRootView();
+        LoadingLayoutPool pool = (LoadingLayoutPool) root.getTag(R.id.ptr_loading_layout_pool);
+        if (null == pool) {
+            pool = new LoadingLayoutPool();
+            root.setTag(R.id.ptr_loading_layout_pool, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Takes a LoadingLayout out of the pool.
+     *
+     * @return A LoadingLayout created with the given Context, or null if the
+     * pool doesn't have one
+     */
+    public LoadingLayoutBase acquire(Context context, AnimationStyle style, Mode mode, Orientation scrollDirection) {
+        final ArrayList<LoadingLayoutBase> layouts = pooledLayouts.get(new Key(style, mode, scrollDirection));
+        if (null == layouts) {
+            return null;
+        }
+
+        // Views in the same window can still have differently themed Contexts
+        for (int i = layouts.size() - 1; i >= 0; i--) {
+            if (layouts.get(i).getContext() == context) {
+                return layouts.remove(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts a LoadingLayout back in the pool, resetting it first. The layout
+     * must have already been removed from its parent.
+     *
+     * @return true if the layout was pooled, false if the pool already had
+     * enough of this kind
+     */
+    public boolean release(LoadingLayoutBase layout, AnimationStyle style, Mode mode, Orientation scrollDirection) {
+        if (null != layout.getParent()) {
+            throw new IllegalStateException("LoadingLayout must be removed from its parent before being pooled");
+        }
+
+        final Key key = new Key(style, mode, scrollDirection);
+        ArrayList<LoadingLayoutBase> layouts = pooledLayouts.get(key);
+        if (null == layouts) {
+            layouts = new ArrayList<>(MAX_POOLED_PER_KEY);
+            pooledLayouts.put(key, layouts);
+        }
+        if (layouts.size() >= MAX_POOLED_PER_KEY || layouts.contains(layout)) {
+            return false;
+        }
+
+        layout.reset();
+        layout.setVisibility(View.INVISIBLE);
+        layouts.add(layout);
+        return true;
+    }
+
+    private static final class Key {
+        private final AnimationStyle style;
+        private final Mode mode;
+        private final Orientation scrollDirection;
+
+        Key(AnimationStyle style, Mode mode, Orientation scrollDirection) {
+            this.style = style;
+            this.mode = mode;
+            this.scrollDirection = scrollDirection;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return style == other.style && mode == other.mode && scrollDirection == other.scrollDirection;
+        }
+
+        @Override
+        public int hashCode() {
+            return (style.ordinal() * 31 + mode.ordinal()) * 31 + scrollDirection.ordinal();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.lance.pulltorefresh.internal;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.text.TextUtils;
+import android.util.TypedValue;
+import android.view.ContextThemeWrapper;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewGroup.LayoutParams;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.ProgressBar;
+import android.widget.RelativeLayout;
+import android.widget.TextView;
+
+import com.lance.pulltorefresh.PullToRefreshBase.Orientation;
+import com.lance.pulltorefresh.R;
+
+/**
+ * Builds the same View hierarchies as the Loading Layout XML layouts, in code,
+ * which avoids parsing the XML and creating each View through reflection. The
+ * Views are given the same ids as in the layouts, and are added straight to
+ * the given parent as the layouts use a merge tag.
+ */
+public class LoadingViewBuilder {
+
+    /**
+     * Equivalent of pull_to_refresh_header_vertical or
+     * pull_to_refresh_header_horizontal.
+     *
+     * @param parent          - LoadingLayout to add the Views to
+     * @param scrollDirection - Which of the layouts to build
+     */
+    public static void buildHeader(ViewGroup parent, Orientation scrollDirection) {
+        final Context context = parent.getContext();
+        final Resources res = context.getResources();
+
+        final FrameLayout innerLayout = new FrameLayout(context);
+        innerLayout.setId(R.id.fl_inner);
+        final int leftRightPadding = res.getDimensionPixelSize(R.dimen.header_footer_left_right_padding);
+        final int topBottomPadding = res.getDimensionPixelSize(R.dimen.header_footer_top_bottom_padding);
+        innerLayout.setPadding(leftRightPadding, topBottomPadding, leftRightPadding, topBottomPadding);
+
+        final ImageView image = new ImageView(context);
+        image.setId(R.id.pull_to_refresh_image);
+        image.setContentDescription(null);
+
+        final ProgressBar progress = new ProgressBar(context, null, android.R.attr.progressBarStyleSmall);
+        progress.setId(R.id.pull_to_refresh_progress);
+        progress.setIndeterminate(true);
+        progress.setVisibility(View.GONE);
+
+        switch (scrollDirection) {
+            case HORIZONTAL:
+                innerLayout.addView(image, centeredParams());
+                innerLayout.addView(progress, centeredParams());
+                parent.addView(innerLayout, new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT,
+                        LayoutParams.MATCH_PARENT));
+                break;
+            case VERTICAL:
+            default:
+                final FrameLayout imageFrame = new FrameLayout(context);
+                imageFrame.addView(image, centeredParams());
+                imageFrame.addView(progress, centeredParams());
+                innerLayout.addView(imageFrame, new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT,
+                        LayoutParams.WRAP_CONTENT, Gravity.START | Gravity.CENTER_VERTICAL));
+
+                final LinearLayout textLayout = new LinearLayout(context);
+                textLayout.setOrientation(LinearLayout.VERTICAL);
+                textLayout.setGravity(Gravity.CENTER_HORIZONTAL);
+
+                final TextView text = new TextView(context);
+                text.setId(R.id.pull_to_refresh_text);
+                text.setMaxLines(1);
+                setThemeTextAppearance(text, android.R.attr.textAppearance);
+                text.setTypeface(text.getTypeface(), Typeface.BOLD);
+                textLayout.addView(text, new LinearLayout.LayoutParams(LayoutParams.WRAP_CONTENT,
+                        LayoutParams.WRAP_CONTENT));
+
+                final TextView subText = new TextView(context);
+                subText.setId(R.id.pull_to_refresh_sub_text);
+                subText.setMaxLines(1);
+                setThemeTextAppearance(subText, android.R.attr.textAppearanceSmall);
+                subText.setVisibility(View.GONE);
+                textLayout.addView(subText, new LinearLayout.LayoutParams(LayoutParams.WRAP_CONTENT,
+                        LayoutParams.WRAP_CONTENT));
+
+                innerLayout.addView(textLayout, centeredParams());
+                parent.addView(innerLayout, new FrameLayout.LayoutParams(LayoutParams.MATCH_PARENT,
+                        LayoutParams.WRAP_CONTENT));
+                break;
+        }
+    }
+
+    /**
+     * Equivalent of default_refreshing_header_layout or
+     * default_loading_footer_layout, which only differ in their text and the
+     * style of their ProgressBar.
+     *
+     * @param parent          - LoadingLayout to add the Views to
+     * @param textResId       - Text to show before any label has been set
+     * @param inverseProgress - true to use the inverse small ProgressBar style
+     */
+    public static void buildDefaultLayout(ViewGroup parent, int textResId, boolean inverseProgress) {
+        final Context context = parent.getContext();
+
+        final FrameLayout innerLayout = new FrameLayout(context);
+        innerLayout.setId(R.id.fl_inner);
+
+        final RelativeLayout content = new RelativeLayout(context);
+        final int verticalPadding = dipToPx(context, 12);
+        content.setPadding(0, verticalPadding, 0, verticalPadding);
+
+        final TextView text = new TextView(context);
+        text.setId(R.id.tv_refreshing_text);
+        text.setEllipsize(TextUtils.TruncateAt.END);
+        text.setMaxLines(1);
+        text.setText(textResId);
+        text.setTextColor(Color.BLACK);
+        text.setTextSize(TypedValue.COMPLEX_UNIT_SP, 12);
+        final RelativeLayout.LayoutParams textParams = new RelativeLayout.LayoutParams(LayoutParams.WRAP_CONTENT,
+                LayoutParams.WRAP_CONTENT);
+        textParams.addRule(RelativeLayout.CENTER_IN_PARENT);
+        content.addView(text, textParams);
+
+        final ProgressBar progress = createSmallProgressBar(context, inverseProgress);
+        progress.setId(R.id.pb_refreshing_progress);
+        final RelativeLayout.LayoutParams progressParams = new RelativeLayout.LayoutParams(LayoutParams.WRAP_CONTENT,
+                LayoutParams.WRAP_CONTENT);
+        progressParams.addRule(RelativeLayout.CENTER_VERTICAL);
+        progressParams.addRule(RelativeLayout.LEFT_OF, R.id.tv_refreshing_text);
+        progressParams.rightMargin = dipToPx(context, 8);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            addRelativeRules(progressParams, R.id.tv_refreshing_text);
+        }
+        content.addView(progress, progressParams);
+
+        innerLayout.addView(content, new FrameLayout.LayoutParams(LayoutParams.MATCH_PARENT,
+                LayoutParams.WRAP_CONTENT));
+        parent.addView(innerLayout, new FrameLayout.LayoutParams(LayoutParams.MATCH_PARENT,
+                LayoutParams.WRAP_CONTENT));
+    }
+
+    /**
+     * Creates a ProgressBar with exactly the style the default layouts give
+     * theirs, rather than whatever the theme's small ProgressBar style is.
+     * Before Lollipop a style can only be given through a theme attr, so a
+     * theme overlay points the attr at the style.
+     */
+    private static ProgressBar createSmallProgressBar(Context context, boolean inverse) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return createStyledProgressBar(context, inverse
+                    ? android.R.style.Widget_ProgressBar_Small_Inverse : android.R.style.Widget_ProgressBar_Small);
+        }
+        return new ProgressBar(new ContextThemeWrapper(context, R.style.PullToRefreshSmallProgressBars), null,
+                inverse ? android.R.attr.progressBarStyleSmallInverse : android.R.attr.progressBarStyleSmall);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static ProgressBar createStyledProgressBar(Context context, int defStyleRes) {
+        return new ProgressBar(context, null, 0, defStyleRes);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    private static void addRelativeRules(RelativeLayout.LayoutParams params, int anchorId) {
+        params.addRule(RelativeLayout.START_OF, anchorId);
+        params.setMarginEnd(params.rightMargin);
+    }
+
+    private static FrameLayout.LayoutParams centeredParams() {
+        return new FrameLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT, Gravity.CENTER);
+    }
+
+    private static void setThemeTextAppearance(TextView textView, int attr) {
+        final TypedValue value = new TypedValue();
+        if (textView.getContext().getTheme().resolveAttribute(attr, value, true)) {
+            textView.setTextAppearance(textView.getContext(), value.resourceId);
+        }
+    }
+
+    private static int dipToPx(Context context, float dip) {
+        return Math.round(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dip,
+                context.getResources().getDisplayMetrics()));
+    }
+}
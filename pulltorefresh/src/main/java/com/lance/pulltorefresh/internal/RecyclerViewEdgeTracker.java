@@ -0,0 +1,239 @@
+package com.lance.pulltorefresh.internal;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+
+/**
+ * Keeps track of whether a RecyclerView is scrolled to its start and/or end,
+ * so that readiness checks are just field reads. The flags are recalculated
+ * when the RecyclerView scrolls or lays out, and marked stale when its
+ * Adapter data changes. Supports {@link LinearLayoutManager} (and so
+ * GridLayoutManager) and {@link StaggeredGridLayoutManager}, any other
+ * LayoutManager falls back to asking the RecyclerView whether it can scroll.
+ * As it knows the last visible position, it also drives a
+ * {@link LoadMoreTrigger}.
+ */
+public class RecyclerViewEdgeTracker extends RecyclerView.OnScrollListener implements View.OnLayoutChangeListener {
+
+    private final RecyclerView recyclerView;
+    private final boolean horizontal;
+    private final LoadMoreTrigger loadMoreTrigger = new LoadMoreTrigger();
+
+    private final RecyclerView.AdapterDataObserver dataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            dirty = true;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            dirty = true;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            dirty = true;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            dirty = true;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            dirty = true;
+        }
+    };
+
+    private RecyclerView.Adapter<?> observedAdapter;
+    private RecyclerView.LayoutManager trackedLayoutManager;
+    private int[] spanPositions;
+
+    private boolean dirty = true;
+    private boolean atStart = true;
+    private boolean atEnd = true;
+    private int lastVisiblePosition = RecyclerView.NO_POSITION;
+
+    public RecyclerViewEdgeTracker(RecyclerView recyclerView, boolean horizontal) {
+        this.recyclerView = recyclerView;
+        this.horizontal = horizontal;
+        recyclerView.addOnScrollListener(this);
+        recyclerView.addOnLayoutChangeListener(this);
+    }
+
+    /**
+     * @return true if the first item is fully shown at the start of the
+     * RecyclerView, or there are no items
+     */
+    public boolean isAtStart() {
+        ensureUpToDate();
+        return atStart;
+    }
+
+    /**
+     * @return true if the last item is fully shown at the end of the
+     * RecyclerView, or there are no items
+     */
+    public boolean isAtEnd() {
+        ensureUpToDate();
+        return atEnd;
+    }
+
+    public LoadMoreTrigger getLoadMoreTrigger() {
+        return loadMoreTrigger;
+    }
+
+    /**
+     * Marks the flags as stale, they'll be recalculated on the next read.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        // Also called with (0, 0) once a layout has changed the visible range
+        update();
+
+        final RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        if (null != adapter) {
+            loadMoreTrigger.onItemsScrolled(lastVisiblePosition, adapter.getItemCount());
+        }
+    }
+
+    @Override
+    public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                               int oldLeft, int oldTop, int oldRight, int oldBottom) {
+        update();
+    }
+
+    private void ensureUpToDate() {
+        // RecyclerView doesn't tell us when its Adapter or LayoutManager is
+        // swapped, so compare against the ones we last saw
+        if (recyclerView.getAdapter() != observedAdapter) {
+            if (null != observedAdapter) {
+                observedAdapter.unregisterAdapterDataObserver(dataObserver);
+            }
+            observedAdapter = recyclerView.getAdapter();
+            if (null != observedAdapter) {
+                observedAdapter.registerAdapterDataObserver(dataObserver);
+            }
+            dirty = true;
+        }
+        if (recyclerView.getLayoutManager() != trackedLayoutManager) {
+            trackedLayoutManager = recyclerView.getLayoutManager();
+            spanPositions = null;
+            dirty = true;
+        }
+
+        if (dirty) {
+            update();
+        }
+    }
+
+    private void update() {
+        final RecyclerView.Adapter<?> adapter = recyclerView.getAdapter();
+        final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+        if (null == adapter || adapter.getItemCount() == 0 || null == layoutManager) {
+            // No data, so allow pulling from both ends
+            atStart = atEnd = true;
+            lastVisiblePosition = RecyclerView.NO_POSITION;
+        } else if (layoutManager.getChildCount() == 0) {
+            // Data but nothing laid out yet, so we can't tell where the edges
+            // are. Don't allow a pull (or a load more) until the layout has
+            // shown us
+            atStart = atEnd = false;
+            lastVisiblePosition = RecyclerView.NO_POSITION;
+            dirty = true;
+            return;
+        } else if (layoutManager instanceof LinearLayoutManager) {
+            final LinearLayoutManager llm = (LinearLayoutManager) layoutManager;
+            lastVisiblePosition = llm.findLastVisibleItemPosition();
+            atStart = isShownAtStart(layoutManager, llm.findFirstVisibleItemPosition(), 0);
+            atEnd = isShownAtEnd(layoutManager, lastVisiblePosition, adapter.getItemCount() - 1);
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            final StaggeredGridLayoutManager sglm = (StaggeredGridLayoutManager) layoutManager;
+            if (null == spanPositions || spanPositions.length != sglm.getSpanCount()) {
+                spanPositions = new int[sglm.getSpanCount()];
+            }
+
+            // The first item has to be fully shown. That alone doesn't mean the
+            // other spans have nothing above them, as the spans are of uneven
+            // length and items can move between them, so then ask the
+            // RecyclerView too. Every span's last item has to be at the end
+            boolean start = false, end;
+            sglm.findFirstCompletelyVisibleItemPositions(spanPositions);
+            for (int position : spanPositions) {
+                if (position == 0) {
+                    start = !canScrollTowardsStart();
+                    break;
+                }
+            }
+
+            final int lastPosition = adapter.getItemCount() - 1;
+            sglm.findLastVisibleItemPositions(spanPositions);
+            lastVisiblePosition = RecyclerView.NO_POSITION;
+            for (int position : spanPositions) {
+                lastVisiblePosition = Math.max(lastVisiblePosition, position);
+            }
+            end = lastVisiblePosition == lastPosition;
+            for (int i = 0; end && i < spanPositions.length; i++) {
+                end = isShownAtEnd(layoutManager, spanPositions[i], spanPositions[i]);
+            }
+
+            atStart = start;
+            atEnd = end;
+        } else {
+            final View lastChild = layoutManager.getChildAt(layoutManager.getChildCount() - 1);
+            lastVisiblePosition = layoutManager.getPosition(lastChild);
+            updateFromCanScroll();
+        }
+
+        // Pending Adapter updates mean the children are about to change
+        dirty = recyclerView.hasPendingAdapterUpdates();
+    }
+
+    private void updateFromCanScroll() {
+        atStart = !canScrollTowardsStart();
+        atEnd = horizontal ? !recyclerView.canScrollHorizontally(1) : !recyclerView.canScrollVertically(1);
+    }
+
+    private boolean canScrollTowardsStart() {
+        return horizontal ? recyclerView.canScrollHorizontally(-1) : recyclerView.canScrollVertically(-1);
+    }
+
+    private boolean isShownAtStart(RecyclerView.LayoutManager layoutManager, int position, int wantedPosition) {
+        if (position != wantedPosition) {
+            return false;
+        }
+
+        final View child = layoutManager.findViewByPosition(position);
+        if (null == child) {
+            return false;
+        }
+        return horizontal ? layoutManager.getDecoratedLeft(child) >= layoutManager.getPaddingLeft()
+                : layoutManager.getDecoratedTop(child) >= layoutManager.getPaddingTop();
+    }
+
+    private boolean isShownAtEnd(RecyclerView.LayoutManager layoutManager, int position, int wantedPosition) {
+        if (position == RecyclerView.NO_POSITION) {
+            // Span with nothing in it
+            return true;
+        }
+        if (position != wantedPosition) {
+            return false;
+        }
+
+        final View child = layoutManager.findViewByPosition(position);
+        if (null == child) {
+            return false;
+        }
+        return horizontal
+                ? layoutManager.getDecoratedRight(child) <= layoutManager.getWidth() - layoutManager.getPaddingRight()
+                : layoutManager.getDecoratedBottom(child) <= layoutManager.getHeight() - layoutManager.getPaddingBottom();
+    }
+}
@@ -15,25 +15,28 @@
  *******************************************************************************/
 package com.lance.pulltorefresh.internal;
 
+import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.graphics.Matrix;
 import android.graphics.drawable.Drawable;
-import android.view.animation.Animation;
-import android.view.animation.RotateAnimation;
 import android.widget.ImageView.ScaleType;
 
 import com.lance.pulltorefresh.PullToRefreshBase;
 import com.lance.pulltorefresh.R;
 
+/**
+ * Rotates the loading drawable through the ImageView's rotation property,
+ * rather than its image matrix. Changing the rotation only updates the View's
+ * display list properties, so neither pulling nor refreshing redraws the
+ * Header's content.
+ */
 public class RotateLoadingLayout extends LoadingLayout {
 
     static final int ROTATION_ANIMATION_DURATION = 1200;
 
-    private final Animation rotateAnimation;
-    private final Matrix headerImageMatrix;
-
-    private float rotationPivotX, rotationPivotY;
+    private ObjectAnimator rotateAnimator;
+    private boolean rotating;
 
     private final boolean rotateDrawableWhilePulling;
 
@@ -42,22 +45,16 @@ public class RotateLoadingLayout extends LoadingLayout {
 
         rotateDrawableWhilePulling = attrs.getBoolean(R.styleable.PullToRefresh_ptrRotateDrawableWhilePulling, true);
 
+        // Keep the drawable where the matrix used to draw it, unscaled at the
+        // top left of the View
         headerImage.setScaleType(ScaleType.MATRIX);
-        headerImageMatrix = new Matrix();
-        headerImage.setImageMatrix(headerImageMatrix);
-
-        rotateAnimation = new RotateAnimation(0, 720, Animation.RELATIVE_TO_SELF, 0.5f, Animation.RELATIVE_TO_SELF,
-                0.5f);
-        rotateAnimation.setInterpolator(ANIMATION_INTERPOLATOR);
-        rotateAnimation.setDuration(ROTATION_ANIMATION_DURATION);
-        rotateAnimation.setRepeatCount(Animation.INFINITE);
-        rotateAnimation.setRepeatMode(Animation.RESTART);
     }
 
     public void onLoadingDrawableSet(Drawable imageDrawable) {
         if (null != imageDrawable) {
-            rotationPivotX = Math.round(imageDrawable.getIntrinsicWidth() / 2f);
-            rotationPivotY = Math.round(imageDrawable.getIntrinsicHeight() / 2f);
+            // Rotate around the middle of the drawable, not of the View
+            headerImage.setPivotX(headerImage.getPaddingLeft() + Math.round(imageDrawable.getIntrinsicWidth() / 2f));
+            headerImage.setPivotY(headerImage.getPaddingTop() + Math.round(imageDrawable.getIntrinsicHeight() / 2f));
         }
     }
 
@@ -69,25 +66,61 @@ public class RotateLoadingLayout extends LoadingLayout {
             angle = Math.max(0f, Math.min(180f, scaleOfLayout * 360f - 180f));
         }
 
-        headerImageMatrix.setRotate(angle, rotationPivotX, rotationPivotY);
-        headerImage.setImageMatrix(headerImageMatrix);
+        headerImage.setRotation(angle);
     }
 
     @Override
     protected void refreshingImpl() {
-        headerImage.startAnimation(rotateAnimation);
+        rotating = true;
+        startRotateAnimator();
+    }
+
+    private void startRotateAnimator() {
+        if (null == rotateAnimator) {
+            rotateAnimator = new ObjectAnimator();
+            rotateAnimator.setTarget(headerImage);
+            rotateAnimator.setPropertyName("rotation");
+            rotateAnimator.setInterpolator(ANIMATION_INTERPOLATOR);
+            rotateAnimator.setDuration(ROTATION_ANIMATION_DURATION);
+            rotateAnimator.setRepeatCount(ValueAnimator.INFINITE);
+            rotateAnimator.setRepeatMode(ValueAnimator.RESTART);
+        }
+
+        // Carry on from wherever the pull left the drawable
+        final float angle = headerImage.getRotation() % 360f;
+        rotateAnimator.setFloatValues(angle, angle + 720f);
+        rotateAnimator.start();
     }
 
     @Override
     protected void resetImpl() {
-        headerImage.clearAnimation();
+        rotating = false;
+        if (null != rotateAnimator) {
+            rotateAnimator.cancel();
+        }
         resetImageRotation();
     }
 
     private void resetImageRotation() {
-        if (null != headerImageMatrix) {
-            headerImageMatrix.reset();
-            headerImage.setImageMatrix(headerImageMatrix);
+        headerImage.setRotation(0f);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (rotating) {
+            startRotateAnimator();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+
+        // Unlike an Animation, an Animator carries on running while we're not
+        // being drawn
+        if (null != rotateAnimator) {
+            rotateAnimator.cancel();
         }
     }
 
@@ -15,10 +15,14 @@
  *******************************************************************************/
 package com.lance.pulltorefresh.internal;
 
+import android.annotation.TargetApi;
+import android.content.Context;
 import android.graphics.drawable.Drawable;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
+import android.view.Display;
 import android.view.View;
+import android.view.WindowManager;
 
 public class ViewCompat {
 
@@ -41,4 +45,25 @@ public class ViewCompat {
     public static void setLayerType(View view, int layerType) {
         view.setLayerType(layerType, null);
     }
+
+    /**
+     * @return Refresh rate in frames per second of the display the View is
+     * on, or the default display's if it isn't attached to one
+     */
+    public static float getRefreshRate(View view) {
+        Display display = null;
+        if (VERSION.SDK_INT >= VERSION_CODES.JELLY_BEAN_MR1) {
+            display = getDisplay(view);
+        }
+        if (null == display) {
+            final WindowManager wm = (WindowManager) view.getContext().getSystemService(Context.WINDOW_SERVICE);
+            display = wm.getDefaultDisplay();
+        }
+        return display.getRefreshRate();
+    }
+
+    @TargetApi(VERSION_CODES.JELLY_BEAN_MR1)
+    private static Display getDisplay(View view) {
+        return view.getDisplay();
+    }
 }
@@ -0,0 +1,100 @@
+package com.lance.pulltorefresh;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the lookup table of {@link CurvePullResistance} against the curves it
+ * samples.
+ */
+public class CurvePullResistanceTest {
+
+    private static final int MAXIMUM_PULL_SCROLL = 10000;
+
+    private static final CurvePullResistance[] TABLE_CURVES = {
+            CurvePullResistance.LOGARITHMIC, CurvePullResistance.RUBBER_BAND
+    };
+
+    @Test
+    public void linearMatchesFriction() throws Exception {
+        for (int max : new int[]{0, 400, MAXIMUM_PULL_SCROLL}) {
+            for (float distance = 0f; distance < 3f * MAXIMUM_PULL_SCROLL; distance += 0.25f) {
+                assertEquals(Math.round(distance / PullToRefreshBase.FRICTION),
+                        CurvePullResistance.LINEAR.getPullScroll(distance, max));
+            }
+        }
+        assertEquals(1f / PullToRefreshBase.FRICTION,
+                CurvePullResistance.LINEAR.getPullScrollSlope(1234f, MAXIMUM_PULL_SCROLL), 0f);
+    }
+
+    @Test
+    public void curvesRiseMonotonically() throws Exception {
+        final float end = clampDistance() * 1.5f;
+        for (CurvePullResistance curve : TABLE_CURVES) {
+            int previous = curve.getPullScroll(0f, MAXIMUM_PULL_SCROLL);
+            assertEquals(0, previous);
+            for (float distance = 1f; distance < end; distance += 1f) {
+                final int scroll = curve.getPullScroll(distance, MAXIMUM_PULL_SCROLL);
+                assertTrue("Fell at " + distance, scroll >= previous);
+                assertTrue(curve.getPullScrollSlope(distance, MAXIMUM_PULL_SCROLL) >= 0f);
+                previous = scroll;
+            }
+            assertTrue(previous > 0);
+        }
+    }
+
+    @Test
+    public void curvesClampedAtMaximum() throws Exception {
+        final float clampDistance = clampDistance();
+        for (CurvePullResistance curve : TABLE_CURVES) {
+            final int clamped = curve.getPullScroll(clampDistance, MAXIMUM_PULL_SCROLL);
+            assertEquals(Math.round(curve.evaluate(CurvePullResistance.MAX_INPUT) * MAXIMUM_PULL_SCROLL), clamped);
+
+            for (float distance = clampDistance; distance < clampDistance * 4f; distance += 100f) {
+                assertEquals(clamped, curve.getPullScroll(distance, MAXIMUM_PULL_SCROLL));
+                assertEquals(0f, curve.getPullScrollSlope(distance, MAXIMUM_PULL_SCROLL), 0f);
+            }
+        }
+
+        // The rubber band never reaches the maximum
+        assertTrue(CurvePullResistance.RUBBER_BAND.getPullScroll(clampDistance * 4f, MAXIMUM_PULL_SCROLL)
+                < MAXIMUM_PULL_SCROLL);
+    }
+
+    @Test
+    public void interpolatesAtTableBoundaries() throws Exception {
+        final float step = CurvePullResistance.MAX_INPUT / (CurvePullResistance.TABLE_SIZE - 1);
+        for (CurvePullResistance curve : TABLE_CURVES) {
+            for (int i = 0; i < CurvePullResistance.TABLE_SIZE - 1; i++) {
+                final float entry = curve.evaluate(i * step);
+                final float nextEntry = curve.evaluate((i + 1) * step);
+
+                // On a table entry, the curve itself
+                assertEquals(entry * MAXIMUM_PULL_SCROLL,
+                        curve.getPullScroll(toDistance(i * step), MAXIMUM_PULL_SCROLL), 1f);
+
+                // Halfway between two entries, halfway between their values
+                assertEquals((entry + nextEntry) / 2f * MAXIMUM_PULL_SCROLL,
+                        curve.getPullScroll(toDistance((i + 0.5f) * step), MAXIMUM_PULL_SCROLL), 1f);
+
+                // And the slope is the slope of the line between them
+                final float slope = (nextEntry - entry) * MAXIMUM_PULL_SCROLL / (toDistance((i + 1) * step)
+                        - toDistance(i * step));
+                assertEquals(slope, curve.getPullScrollSlope(toDistance((i + 0.5f) * step), MAXIMUM_PULL_SCROLL),
+                        Math.abs(slope) * 1e-3f);
+            }
+        }
+    }
+
+    /**
+     * @return Drag distance past which the table is clamped
+     */
+    private static float clampDistance() {
+        return toDistance(CurvePullResistance.MAX_INPUT);
+    }
+
+    private static float toDistance(float input) {
+        return input * MAXIMUM_PULL_SCROLL * PullToRefreshBase.FRICTION;
+    }
+}
@@ -0,0 +1,112 @@
+package com.lance.pulltorefresh.internal;
+
+import com.lance.pulltorefresh.PullToRefreshBase.OnLoadMoreListener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks when {@link LoadMoreTrigger} asks for the next page as the list is
+ * scrolled back and forth and pages are loaded.
+ */
+public class LoadMoreTriggerTest {
+
+    private LoadMoreTrigger trigger;
+    private int loadCount;
+
+    @Before
+    public void setUp() throws Exception {
+        trigger = new LoadMoreTrigger();
+        trigger.setOnLoadMoreListener(new OnLoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+                loadCount++;
+            }
+        });
+        trigger.setPrefetchDistance(5);
+    }
+
+    @Test
+    public void firesOnceWithinPrefetchDistance() throws Exception {
+        trigger.onItemsScrolled(13, 20);
+        assertEquals(0, loadCount);
+
+        trigger.onItemsScrolled(14, 20);
+        assertEquals(1, loadCount);
+    }
+
+    @Test
+    public void repeatedCrossingsFireOnce() throws Exception {
+        // Flinging back and forth over the threshold, as happens mid-fling
+        for (int i = 0; i < 10; i++) {
+            trigger.onItemsScrolled(10, 20);
+            trigger.onItemsScrolled(14, 20);
+            trigger.onItemsScrolled(19, 20);
+        }
+        assertEquals(1, loadCount);
+    }
+
+    @Test
+    public void firesAgainAfterPageLoad() throws Exception {
+        trigger.onItemsScrolled(19, 20);
+        assertEquals(1, loadCount);
+
+        // The next page has been added, and isn't near the end yet
+        trigger.onItemsScrolled(19, 40);
+        assertEquals(1, loadCount);
+
+        trigger.onItemsScrolled(34, 40);
+        assertEquals(2, loadCount);
+        trigger.onItemsScrolled(39, 40);
+        assertEquals(2, loadCount);
+    }
+
+    @Test
+    public void resetAllowsRetry() throws Exception {
+        trigger.onItemsScrolled(19, 20);
+        trigger.onItemsScrolled(19, 20);
+        assertEquals(1, loadCount);
+
+        // The load failed, so the same item count asks again
+        trigger.reset();
+        trigger.onItemsScrolled(19, 20);
+        assertEquals(2, loadCount);
+    }
+
+    @Test
+    public void endOfDataDoesNotFireAgain() throws Exception {
+        trigger.onItemsScrolled(19, 20);
+        assertEquals(1, loadCount);
+
+        // The last page loaded nothing, so the item count stays the same
+        for (int i = 0; i < 10; i++) {
+            trigger.onItemsScrolled(0, 20);
+            trigger.onItemsScrolled(19, 20);
+        }
+        assertEquals(1, loadCount);
+    }
+
+    @Test
+    public void ignoresEmptyData() throws Exception {
+        trigger.onItemsScrolled(0, 0);
+        trigger.onItemsScrolled(-1, 20);
+        assertEquals(0, loadCount);
+    }
+
+    @Test
+    public void zeroPrefetchDistanceWaitsForLastItem() throws Exception {
+        trigger.setPrefetchDistance(0);
+        trigger.onItemsScrolled(18, 20);
+        assertEquals(0, loadCount);
+
+        trigger.onItemsScrolled(19, 20);
+        assertEquals(1, loadCount);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePrefetchDistanceThrows() throws Exception {
+        trigger.setPrefetchDistance(-1);
+    }
+}